@@ -22,6 +22,8 @@
 
 package pascal.taie;
 
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -37,6 +39,8 @@ public class Assignment {
             Collections.addAll(argList, "-pp", "-p", "plan.yml");
             Collections.addAll(argList, args);
             Main.main(argList.toArray(new String[0]));
+            // the call graph edges may still be being dumped in background
+            CallGraphBuilder.awaitEdgeDump();
         } else {
             System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME>");
         }
@@ -90,7 +90,7 @@ public class ConstantPropagation extends
         if (v2.isUndef()) return v1;
 
         if (v1.isConstant() && v2.isConstant() && v1.getConstant() == v2.getConstant()) {
-            return Value.makeConstant(v1.getConstant());
+            return v1;
         }
         return Value.getNAC();
     }
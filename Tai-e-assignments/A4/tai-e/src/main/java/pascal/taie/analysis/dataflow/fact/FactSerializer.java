@@ -0,0 +1,48 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts data-flow facts of the nodes in a method to and from bytes.
+ *
+ * @param <Method> type of methods
+ * @param <Fact>   type of data-flow facts
+ */
+public interface FactSerializer<Method, Fact> {
+
+    /**
+     * Writes a fact of a node in given method.
+     */
+    void write(Method method, Fact fact, DataOutputStream out) throws IOException;
+
+    /**
+     * Reads a fact of a node in given method, which was written by
+     * {@link #write(Object, Object, DataOutputStream)}.
+     */
+    Fact read(Method method, ByteBuffer buf);
+}
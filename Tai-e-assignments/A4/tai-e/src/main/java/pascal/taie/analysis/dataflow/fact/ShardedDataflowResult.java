@@ -0,0 +1,370 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link DataflowResult} which keeps the facts of the nodes in each method
+ * in a separate shard, and spills cold shards to a temporary file when the
+ * estimated heap size of the shards in memory exceeds a budget.
+ * A spilled shard is paged back in by reading its part of the file into
+ * a buffer, which is reused by all loads, when the fact of any of its
+ * nodes is queried or updated.
+ * <p>
+ * As the client may modify a fact after obtaining it, a shard is pinned
+ * in memory once any of its facts is obtained, until {@link #release()} is
+ * called, which declares that the facts obtained so far will not be
+ * modified any more. After {@link #setReadOnly()} is called, e.g., when
+ * the solver has finished, the queried shards are not pinned any more.
+ * Whenever a shard is loaded or created, and when {@link #release()} is
+ * called, the unpinned shards in memory are spilled in least-recently-used
+ * order until the shards in memory fit in the budget. The heap size of
+ * a shard is estimated by the size of its serialized form, so the budget
+ * is a rough bound.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of nodes
+ * @param <Fact>   type of data-flow facts
+ */
+public class ShardedDataflowResult<Method, Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(ShardedDataflowResult.class);
+
+    /**
+     * Estimated ratio of the heap size of facts to the size of
+     * their serialized form.
+     */
+    private static final int HEAP_RATIO = 8;
+
+    /**
+     * Estimated heap size of a fact which has never been spilled.
+     */
+    private static final int FACT_SIZE = 64;
+
+    private final Function<Node, Method> nodeToMethod;
+
+    private final FactSerializer<Method, Fact> serializer;
+
+    private final long heapBudget;
+
+    private final Map<Method, Shard> shards = Maps.newMap();
+
+    /**
+     * Shards in memory, from least to most recently used.
+     */
+    private final Map<Method, Shard> residentShards =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Shards accessed since last call of {@link #release()}.
+     */
+    private final List<Shard> pinnedShards = new ArrayList<>();
+
+    private long residentSize = 0;
+
+    /**
+     * Whether the facts obtained from this result are only read,
+     * so that the queried shards need not be pinned.
+     */
+    private boolean readOnly = false;
+
+    private FileChannel spillFile;
+
+    private long spillFileSize = 0;
+
+    /**
+     * Buffer for reading spilled shards, which grows to the largest shard.
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(0);
+
+    private int spills = 0;
+
+    private int loads = 0;
+
+    /**
+     * @param nodeToMethod gives the method containing each node
+     * @param serializer   serializer of the facts
+     * @param heapBudget   estimated heap size in bytes of the shards in memory,
+     *                     beyond which cold shards are spilled
+     */
+    public ShardedDataflowResult(Function<Node, Method> nodeToMethod,
+                                 FactSerializer<Method, Fact> serializer,
+                                 long heapBudget) {
+        this.nodeToMethod = nodeToMethod;
+        this.serializer = serializer;
+        this.heapBudget = heapBudget;
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        Shard shard = getShard(node, false);
+        return shard == null ? null : shard.inFacts.get(node);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        getShard(node, true).setFact(node, fact, true);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        Shard shard = getShard(node, false);
+        return shard == null ? null : shard.outFacts.get(node);
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        getShard(node, true).setFact(node, fact, false);
+    }
+
+    /**
+     * Declares that the facts obtained from this result so far will not be
+     * modified any more, and spills cold shards if the shards in memory
+     * exceed the heap budget.
+     */
+    public void release() {
+        pinnedShards.forEach(shard -> shard.pinned = false);
+        pinnedShards.clear();
+        evict(null);
+    }
+
+    /**
+     * Declares that the facts obtained from this result hereafter will
+     * only be read, so that the shards in memory can be spilled whenever
+     * a shard is loaded. The facts set afterwards are still pinned until
+     * next call of {@link #release()}.
+     */
+    public void setReadOnly() {
+        readOnly = true;
+        release();
+    }
+
+    public void logStatistics() {
+        logger.info("Result shards: {} in total, {} in memory, {} spills, {} loads, {} bytes spilled",
+                shards.size(), residentShards.size(), spills, loads, spillFileSize);
+    }
+
+    private Shard getShard(Node node, boolean create) {
+        Method method = nodeToMethod.apply(node);
+        Shard shard = shards.get(method);
+        if (shard == null) {
+            if (!create) {
+                return null;
+            }
+            shard = new Shard(method);
+            shards.put(method, shard);
+            residentShards.put(method, shard);
+            evict(shard);
+        } else if (shard.inFacts == null) {
+            load(shard);
+            residentShards.put(method, shard);
+            evict(shard);
+        } else {
+            // touches the shard to update its recency
+            residentShards.get(method);
+        }
+        if ((create || !readOnly) && !shard.pinned) {
+            shard.pinned = true;
+            pinnedShards.add(shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Spills unpinned shards in least-recently-used order, except the
+     * given one, until the shards in memory fit in the heap budget.
+     */
+    private void evict(Shard current) {
+        Iterator<Shard> it = residentShards.values().iterator();
+        while (residentSize > heapBudget && it.hasNext()) {
+            Shard shard = it.next();
+            if (!shard.pinned && shard != current) {
+                it.remove();
+                spill(shard);
+            }
+        }
+    }
+
+    private void spill(Shard shard) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                for (Node node : shard.nodes) {
+                    writeFact(out, shard.method, shard.inFacts.get(node));
+                    writeFact(out, shard.method, shard.outFacts.get(node));
+                }
+            }
+            byte[] data = bytes.toByteArray();
+            if (spillFile == null) {
+                Path path = Files.createTempFile("tai-e-result", ".bin");
+                spillFile = FileChannel.open(path, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            if (data.length > shard.capacity) {
+                // the shard outgrows its previous space in the file
+                shard.offset = spillFileSize;
+                shard.capacity = data.length;
+                spillFileSize += data.length;
+            }
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining()) {
+                spillFile.write(buf, shard.offset + buf.position());
+            }
+            shard.length = data.length;
+            residentSize -= shard.size;
+            shard.size = (long) data.length * HEAP_RATIO;
+            shard.inFacts = null;
+            shard.outFacts = null;
+            ++spills;
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to spill result of " + shard.method, e);
+        }
+    }
+
+    private void writeFact(DataOutputStream out, Method method, Fact fact)
+            throws IOException {
+        out.writeBoolean(fact != null);
+        if (fact != null) {
+            serializer.write(method, fact, out);
+        }
+    }
+
+    private void load(Shard shard) {
+        try {
+            ByteBuffer buf = read(shard);
+            shard.inFacts = Maps.newHybridMap();
+            shard.outFacts = Maps.newHybridMap();
+            for (Node node : shard.nodes) {
+                Fact in = readFact(buf, shard.method);
+                if (in != null) {
+                    shard.inFacts.put(node, in);
+                }
+                Fact out = readFact(buf, shard.method);
+                if (out != null) {
+                    shard.outFacts.put(node, out);
+                }
+            }
+            residentSize += shard.size;
+            ++loads;
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load result of " + shard.method, e);
+        }
+    }
+
+    /**
+     * Reads the space of given shard in the spill file into {@link #readBuffer}.
+     *
+     * @return the buffer holding the data of the shard.
+     */
+    private ByteBuffer read(Shard shard) throws IOException {
+        if (readBuffer.capacity() < shard.length) {
+            readBuffer = ByteBuffer.allocate(
+                    Math.max(shard.length, readBuffer.capacity() * 2));
+        }
+        ByteBuffer buf = readBuffer.clear().limit(shard.length);
+        while (buf.hasRemaining()) {
+            if (spillFile.read(buf, shard.offset + buf.position()) < 0) {
+                throw new IOException("Unexpected end of spill file");
+            }
+        }
+        return buf.flip();
+    }
+
+    private Fact readFact(ByteBuffer buf, Method method) {
+        return buf.get() != 0 ? serializer.read(method, buf) : null;
+    }
+
+    /**
+     * Facts of the nodes in a method.
+     */
+    private class Shard {
+
+        private final Method method;
+
+        /**
+         * Nodes having facts, in the order in which they are spilled.
+         */
+        private final List<Node> nodes = new ArrayList<>();
+
+        /**
+         * Facts of the nodes, or null if this shard is spilled.
+         */
+        private Map<Node, Fact> inFacts = Maps.newHybridMap();
+
+        private Map<Node, Fact> outFacts = Maps.newHybridMap();
+
+        /**
+         * Estimated heap size of the facts.
+         */
+        private long size = 0;
+
+        private boolean pinned = false;
+
+        /**
+         * Position, length and capacity of the space of this shard
+         * in the spill file.
+         */
+        private long offset = 0;
+
+        private int length = 0;
+
+        private int capacity = 0;
+
+        private Shard(Method method) {
+            this.method = method;
+        }
+
+        private void setFact(Node node, Fact fact, boolean isIn) {
+            if (!inFacts.containsKey(node) && !outFacts.containsKey(node)) {
+                nodes.add(node);
+            }
+            Map<Node, Fact> facts = isIn ? inFacts : outFacts;
+            if (facts.put(node, fact) == null) {
+                size += FACT_SIZE;
+                residentSize += FACT_SIZE;
+            }
+        }
+    }
+}
@@ -22,14 +22,18 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactSerializer;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
@@ -45,6 +49,8 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
         extends ProgramAnalysis
         implements InterDataflowAnalysis<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(AbstractInterDataflowAnalysis.class);
+
     protected ICFG<Method, Node> icfg;
 
     protected InterSolver<Method, Node, Fact> solver;
@@ -117,11 +123,99 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     protected abstract Fact transferReturnEdge(ReturnEdge<Node> edge, Fact returnOut);
     // ----------------------------------------------------------------
 
+    /**
+     * Dispatches {@link ICFGEdge} to specific edge transfer functions which
+     * meet their results into target fact, according to the concrete type
+     * of {@link ICFGEdge}.
+     */
+    @Override
+    public void transferEdgeInto(ICFGEdge<Node> edge, Fact out, Fact target) {
+        if (edge instanceof NormalEdge) {
+            transferNormalEdgeInto((NormalEdge<Node>) edge, out, target);
+        } else if (edge instanceof CallToReturnEdge) {
+            transferCallToReturnEdgeInto((CallToReturnEdge<Node>) edge, out, target);
+        } else if (edge instanceof CallEdge) {
+            transferCallEdgeInto((CallEdge<Node>) edge, out, target);
+        } else {
+            transferReturnEdgeInto((ReturnEdge<Node>) edge, out, target);
+        }
+    }
+
+    // ---------- in-place transfer functions for specific ICFG edges ----------
+    // By default, they meet the results of the transfer functions above into
+    // target fact, and the analysis can override them to avoid creating
+    // intermediate facts.
+    protected void transferNormalEdgeInto(
+            NormalEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferNormalEdge(edge, out), target);
+    }
+
+    protected void transferCallToReturnEdgeInto(
+            CallToReturnEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferCallToReturnEdge(edge, out), target);
+    }
+
+    protected void transferCallEdgeInto(
+            CallEdge<Node> edge, Fact callSiteOut, Fact target) {
+        meetInto(transferCallEdge(edge, callSiteOut), target);
+    }
+
+    protected void transferReturnEdgeInto(
+            ReturnEdge<Node> edge, Fact returnOut, Fact target) {
+        meetInto(transferReturnEdge(edge, returnOut), target);
+    }
+    // ----------------------------------------------------------------
+
+    /**
+     * If the result of the analysis can be spilled to disk, then it can
+     * overwrite this method to provide the serializer of its facts.
+     *
+     * @return serializer of the facts, or null if the result cannot be
+     * spilled.
+     */
+    protected FactSerializer<Method, Fact> getFactSerializer() {
+        return null;
+    }
+
+    /**
+     * @return a new {@link InterSolver}, which spills the result to disk
+     * if option "result-heap-budget" (in MB) is positive and the facts
+     * can be serialized.
+     */
+    InterSolver<Method, Node, Fact> newInterSolver() {
+        InterSolver<Method, Node, Fact> solver = new InterSolver<>(this, icfg);
+        Object budget = getOptions().get("result-heap-budget");
+        FactSerializer<Method, Fact> serializer = getFactSerializer();
+        if (budget != null && (Integer) budget > 0 && serializer != null) {
+            solver.setSpilling(serializer, (Integer) budget * (1L << 20));
+        }
+        return solver;
+    }
+
+    /**
+     * Solves the analysis by {@link ParallelInterSolver} if option
+     * "parallelism" is greater than 1, otherwise by {@link InterSolver}.
+     * As {@link ParallelInterSolver} needs all nodes of the ICFG up front,
+     * {@link InterSolver} is always used for ICFGs built on demand.
+     * The result of {@link ParallelInterSolver} is never spilled to disk,
+     * thus option "result-heap-budget" is ignored with a warning.
+     */
     @Override
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        Object parallelism = getOptions().get("parallelism");
+        if (parallelism != null && (Integer) parallelism > 1
+                && !(icfg instanceof LazyICFG)) {
+            Object budget = getOptions().get("result-heap-budget");
+            if (budget != null && (Integer) budget > 0) {
+                logger.warn("Option result-heap-budget is ignored as {} is solved in parallel",
+                        getId());
+            }
+            solver = new ParallelInterSolver<>(this, icfg, (Integer) parallelism);
+        } else {
+            solver = newInterSolver();
+        }
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
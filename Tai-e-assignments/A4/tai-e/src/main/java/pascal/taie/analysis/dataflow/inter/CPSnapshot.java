@@ -0,0 +1,384 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the result of inter-procedural constant propagation, which
+ * is stored in a file and reused by the next run on a changed program.
+ * <p>
+ * For each method in the ICFG, the snapshot keeps a fingerprint of its IR,
+ * the callees of its call sites, and the facts of its nodes. Methods are
+ * identified by their signatures, nodes by their positions in the IR, and
+ * variables by their names. On reading, a method is changed if it is new,
+ * its fingerprint differs, or it gains or loses callers or callees. Facts
+ * are restored only for unchanged methods.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    #methods, followed by each method as
+ *        string signature, long fingerprint, boolean isEntry,
+ *        int    #call sites, followed by (int index, int #callees,
+ *               string signature of each callee) of each call site
+ *        int    #nodes (0 if absent), followed by (IN fact, OUT fact) of
+ *               entry node, nodes of the statements and exit node
+ * </pre>
+ * where each fact is stored as its size (int) followed by (string var name,
+ * boolean isNAC, int constant if not NAC) of each entry, and each string is
+ * stored as its length in bytes (int) followed by its UTF-8 bytes.
+ */
+class CPSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(CPSnapshot.class);
+
+    private static final int MAGIC = 0x54435046; // "TCPF"
+
+    private static final int VERSION = 1;
+
+    /**
+     * Facts of the nodes of unchanged methods.
+     */
+    private final DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+
+    private final Set<JMethod> changedMethods = Sets.newSet();
+
+    private CPSnapshot() {
+    }
+
+    /**
+     * @return facts of the nodes of unchanged methods in previous result.
+     */
+    DataflowResult<Stmt, CPFact> getResult() {
+        return result;
+    }
+
+    /**
+     * @return the nodes of changed methods.
+     */
+    Set<Stmt> getChangedNodes() {
+        Set<Stmt> nodes = Sets.newSet();
+        for (JMethod method : changedMethods) {
+            CFG<Stmt> cfg = method.getIR().getResult(CFGBuilder.ID);
+            if (cfg != null) {
+                nodes.addAll(cfg.getNodes());
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the number of changed methods.
+     */
+    int getNumberOfChangedMethods() {
+        return changedMethods.size();
+    }
+
+    /**
+     * Writes the result of given ICFG to the given file.
+     */
+    static void write(File file, ICFG<JMethod, Stmt> icfg,
+                      DataflowResult<Stmt, CPFact> result) {
+        logger.info("Writing inter-constprop snapshot to {} ...", file);
+        List<JMethod> methods = getMethods(icfg);
+        Set<JMethod> entries = icfg.entryMethods().collect(Collectors.toSet());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(methods.size());
+            for (JMethod method : methods) {
+                IR ir = method.getIR();
+                writeString(out, method.getSignature());
+                out.writeLong(fingerprint(ir));
+                out.writeBoolean(entries.contains(method));
+                Map<Integer, Set<String>> callSites = getCallSites(icfg, ir);
+                out.writeInt(callSites.size());
+                for (Map.Entry<Integer, Set<String>> entry : callSites.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (String callee : entry.getValue()) {
+                        writeString(out, callee);
+                    }
+                }
+                List<Stmt> nodes = getNodes(ir);
+                if (nodes.stream().anyMatch(n -> result.getInFact(n) == null)) {
+                    out.writeInt(0);
+                    continue;
+                }
+                out.writeInt(nodes.size());
+                for (Stmt node : nodes) {
+                    writeFact(out, result.getInFact(node));
+                    writeFact(out, result.getOutFact(node));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write inter-constprop snapshot to {}, caused by {}",
+                    file, e);
+        }
+    }
+
+    /**
+     * Reads the snapshot from given file, and compares it with given ICFG
+     * to find the changed methods.
+     *
+     * @return the snapshot, or {@code null} if the file does not exist
+     * or is malformed.
+     */
+    static @Nullable CPSnapshot read(File file, ICFG<JMethod, Stmt> icfg) {
+        if (!file.isFile()) {
+            return null;
+        }
+        logger.info("Reading inter-constprop snapshot from {} ...", file);
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                logger.warn("{} is not an inter-constprop snapshot of current version",
+                        file);
+                return null;
+            }
+            return read(buf, icfg);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read inter-constprop snapshot from {}, caused by {}",
+                    file, e);
+            return null;
+        }
+    }
+
+    private static CPSnapshot read(ByteBuffer buf, ICFG<JMethod, Stmt> icfg) {
+        CPSnapshot snapshot = new CPSnapshot();
+        Map<String, JMethod> methods = Maps.newMap();
+        getMethods(icfg).forEach(m -> methods.put(m.getSignature(), m));
+        Set<JMethod> entries = icfg.entryMethods().collect(Collectors.toSet());
+        Set<JMethod> unchanged = Sets.newSet();
+        int nMethods = buf.getInt();
+        for (int i = 0; i < nMethods; ++i) {
+            JMethod method = methods.get(readString(buf));
+            long fingerprint = buf.getLong();
+            boolean isEntry = buf.get() != 0;
+            boolean isChanged = method == null
+                    || fingerprint != fingerprint(method.getIR())
+                    || isEntry != entries.contains(method);
+            Map<Integer, Set<String>> callSites = isChanged ? Map.of()
+                    : getCallSites(icfg, method.getIR());
+            int nCallSites = buf.getInt();
+            for (int j = 0; j < nCallSites; ++j) {
+                int index = buf.getInt();
+                Set<String> callees = Sets.newSet();
+                int nCallees = buf.getInt();
+                for (int k = 0; k < nCallees; ++k) {
+                    callees.add(readString(buf));
+                }
+                Set<String> current = callSites.getOrDefault(index, Set.of());
+                if (isChanged || !callees.equals(current)) {
+                    // the callees which gain or lose callers are changed
+                    for (String callee : callees) {
+                        if (!current.contains(callee) && methods.containsKey(callee)) {
+                            snapshot.changedMethods.add(methods.get(callee));
+                        }
+                    }
+                    for (String callee : current) {
+                        if (!callees.contains(callee) && methods.containsKey(callee)) {
+                            snapshot.changedMethods.add(methods.get(callee));
+                        }
+                    }
+                    isChanged = true;
+                }
+            }
+            if (!isChanged && callSites.size() != nCallSites) {
+                isChanged = true;
+            }
+            int nNodes = buf.getInt();
+            List<Stmt> nodes = isChanged ? List.of() : getNodes(method.getIR());
+            Map<String, Var> vars = Maps.newMap();
+            if (!isChanged) {
+                method.getIR().getVars().forEach(v -> vars.put(v.getName(), v));
+            }
+            if (nodes.size() != nNodes) {
+                isChanged = true;
+            }
+            for (int j = 0; j < nNodes; ++j) {
+                CPFact in = readFact(buf, vars);
+                CPFact out = readFact(buf, vars);
+                if (!isChanged) {
+                    snapshot.result.setInFact(nodes.get(j), in);
+                    snapshot.result.setOutFact(nodes.get(j), out);
+                }
+            }
+            if (method != null) {
+                (isChanged ? snapshot.changedMethods : unchanged).add(method);
+            }
+        }
+        for (JMethod method : methods.values()) {
+            if (!unchanged.contains(method)) {
+                snapshot.changedMethods.add(method);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the methods having nodes in given ICFG.
+     */
+    private static List<JMethod> getMethods(ICFG<JMethod, Stmt> icfg) {
+        Set<JMethod> methods = Sets.newHybridOrderedSet();
+        icfg.getNodes().forEach(n -> methods.add(icfg.getContainingMethodOf(n)));
+        return new ArrayList<>(methods);
+    }
+
+    /**
+     * @return the signatures of the callees of each call site in given IR.
+     */
+    private static Map<Integer, Set<String>> getCallSites(
+            ICFG<JMethod, Stmt> icfg, IR ir) {
+        Map<Integer, Set<String>> callSites = new TreeMap<>();
+        for (Stmt stmt : ir) {
+            if (icfg.isCallSite(stmt)) {
+                Set<String> callees = Sets.newHybridOrderedSet();
+                icfg.getCalleesOf(stmt).forEach(m -> callees.add(m.getSignature()));
+                callSites.put(stmt.getIndex(), callees);
+            }
+        }
+        return callSites;
+    }
+
+    /**
+     * @return the entry node, the nodes of the statements and the exit node
+     * of the CFG of given IR, or an empty list if the CFG is absent.
+     */
+    private static List<Stmt> getNodes(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (cfg == null) {
+            return List.of();
+        }
+        List<Stmt> nodes = new ArrayList<>(ir.getStmts().size() + 2);
+        nodes.add(cfg.getEntry());
+        nodes.addAll(ir.getStmts());
+        nodes.add(cfg.getExit());
+        return nodes;
+    }
+
+    /**
+     * Computes a fingerprint of the variables and statements in given IR.
+     * The fingerprint does not depend on line numbers, so moving a method
+     * in its source file does not change it.
+     */
+    private static long fingerprint(IR ir) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        }
+        for (Var var : ir.getVars()) {
+            update(digest, var.getName() + ":" + var.getType());
+        }
+        for (Stmt stmt : ir) {
+            update(digest, stmt.toString());
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void writeFact(DataOutputStream out, CPFact fact)
+            throws IOException {
+        out.writeInt(fact.keySet().size());
+        for (Var var : fact.keySet()) {
+            Value value = fact.get(var);
+            writeString(out, var.getName());
+            out.writeBoolean(value.isNAC());
+            if (value.isConstant()) {
+                out.writeInt(value.getConstant());
+            }
+        }
+    }
+
+    private static CPFact readFact(ByteBuffer buf, Map<String, Var> vars) {
+        CPFact fact = new CPFact();
+        int size = buf.getInt();
+        for (int i = 0; i < size; ++i) {
+            Var var = vars.get(readString(buf));
+            Value value = buf.get() != 0 ? Value.getNAC()
+                    : Value.makeConstant(buf.getInt());
+            if (var != null) {
+                fact.update(var, value);
+            }
+        }
+        return fact;
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
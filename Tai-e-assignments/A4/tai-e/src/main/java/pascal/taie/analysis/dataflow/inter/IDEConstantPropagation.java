@@ -0,0 +1,454 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.inter.ide.AllTop;
+import pascal.taie.analysis.dataflow.inter.ide.EdgeFunction;
+import pascal.taie.analysis.dataflow.inter.ide.EdgeIdentity;
+import pascal.taie.analysis.dataflow.inter.ide.FlowFunction;
+import pascal.taie.analysis.dataflow.inter.ide.IDEProblem;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.CSRCFG;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inter-procedural constant propagation formulated as an IDE problem,
+ * i.e., linear constant propagation of Sagiv, Reps and Horwitz.
+ * <p>
+ * The facts are the variables that can hold int values, and the value
+ * of a variable is computed by edge functions of the form λx.a*x+b,
+ * λx.c or λx.NAC. To recover the precision on assignments whose operands
+ * are all constants, e.g., x = y + z, the operands are first evaluated by
+ * intra-procedural constant propagation (which is sound for any calling
+ * context, as it treats parameters and call results as NAC) and by the
+ * known constants given by the previous round of the analysis, if any;
+ * an assignment is then modeled as λx.c if its result is a constant c,
+ * as λx.a*x+b if it is linear in a single non-constant variable, and as
+ * λx.NAC otherwise.
+ */
+class IDEConstantPropagation implements IDEProblem<JMethod, Stmt, Var, Value> {
+
+    /**
+     * The zero fact, which holds at every reachable node.
+     */
+    private static final Var ZERO = new Var(null, "<zero>", PrimitiveType.INT, -1);
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final Set<Stmt> entries = Sets.newSet();
+
+    private final Solver<Stmt, CPFact> intraSolver = Solver.makeSolver(
+            new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID)));
+
+    /**
+     * Results of intra-procedural constant propagation of each method.
+     */
+    private final Map<JMethod, DataflowResult<Stmt, CPFact>> intraResults = Maps.newMap();
+
+    /**
+     * Sound constants before each statement known from previous analysis.
+     */
+    private final Map<Stmt, CPFact> knownConstants;
+
+    /**
+     * Cache of the constants before each statement.
+     */
+    private final Map<Stmt, CPFact> constantsBefore = Maps.newMap();
+
+    /**
+     * @param knownConstants sound constants before each statement known
+     *                       from previous analysis, e.g., the IN facts
+     *                       computed by previous round of this analysis.
+     */
+    IDEConstantPropagation(ICFG<JMethod, Stmt> icfg, Map<Stmt, CPFact> knownConstants) {
+        this.icfg = icfg;
+        this.knownConstants = knownConstants;
+        icfg.entryMethods().map(icfg::getEntryOf).forEach(entries::add);
+    }
+
+    @Override
+    public ICFG<JMethod, Stmt> getICFG() {
+        return icfg;
+    }
+
+    @Override
+    public Var zeroValue() {
+        return ZERO;
+    }
+
+    @Override
+    public Map<Stmt, Set<Var>> initialSeeds() {
+        Map<Stmt, Set<Var>> seeds = Maps.newMap();
+        entries.forEach(entry -> seeds.put(entry, Set.of(ZERO)));
+        return seeds;
+    }
+
+    // ---------- flow functions ----------
+
+    @Override
+    public FlowFunction<Var> getNormalFlowFunction(Stmt curr, Stmt succ) {
+        if (entries.contains(curr)) {
+            // parameters of entry methods are unknown
+            List<Var> params = icfg.getContainingMethodOf(curr).getIR().getParams();
+            return d -> {
+                if (d != ZERO) {
+                    return Set.of(d);
+                }
+                Set<Var> targets = Sets.newHybridSet();
+                targets.add(ZERO);
+                params.stream()
+                        .filter(ConstantPropagation::canHoldInt)
+                        .forEach(targets::add);
+                return targets;
+            };
+        }
+        Var lhs = getIntDef(curr);
+        if (lhs == null) {
+            return FlowFunction.identity();
+        }
+        Var source = evaluate(curr).isConstant() ? null
+                : getLinearSource(curr, ((DefinitionStmt<?, ?>) curr).getRValue());
+        return d -> {
+            if (d == ZERO) {
+                return source == null ? Set.of(ZERO, lhs) : Set.of(ZERO);
+            }
+            if (d.equals(source)) {
+                return d.equals(lhs) ? Set.of(lhs) : Set.of(d, lhs);
+            }
+            return d.equals(lhs) ? Set.of() : Set.of(d);
+        };
+    }
+
+    @Override
+    public FlowFunction<Var> getCallFlowFunction(Stmt callSite, JMethod callee) {
+        InvokeExp invokeExp = ((Invoke) callSite).getInvokeExp();
+        List<Var> params = callee.getIR().getParams();
+        return d -> {
+            if (d == ZERO) {
+                return Set.of(ZERO);
+            }
+            Set<Var> targets = Sets.newHybridSet();
+            for (int i = 0; i < params.size(); ++i) {
+                if (invokeExp.getArg(i).equals(d)
+                        && ConstantPropagation.canHoldInt(params.get(i))) {
+                    targets.add(params.get(i));
+                }
+            }
+            return targets;
+        };
+    }
+
+    @Override
+    public FlowFunction<Var> getReturnFlowFunction(
+            Stmt callSite, JMethod callee, Stmt exit, Stmt returnSite) {
+        Var lhs = getIntDef(callSite);
+        List<Var> returnVars = callee.getIR().getReturnVars();
+        return d -> {
+            if (d == ZERO) {
+                return Set.of(ZERO);
+            }
+            return lhs != null && returnVars.contains(d) ? Set.of(lhs) : Set.of();
+        };
+    }
+
+    @Override
+    public FlowFunction<Var> getCallToReturnFlowFunction(Stmt callSite, Stmt returnSite) {
+        Var lhs = getIntDef(callSite);
+        return d -> d.equals(lhs) ? Set.of() : Set.of(d);
+    }
+
+    // ---------- edge functions ----------
+
+    @Override
+    public EdgeFunction<Value> getNormalEdgeFunction(
+            Stmt curr, Var currFact, Stmt succ, Var succFact) {
+        if (currFact == ZERO && succFact != ZERO) {
+            if (entries.contains(curr)) {
+                return LinearFunction.ALL_NAC;
+            }
+            // generated by an assignment whose result is a constant
+            // or is not linear
+            Value value = evaluate(curr);
+            return value.isConstant()
+                    ? LinearFunction.constant(value.getConstant())
+                    : LinearFunction.ALL_NAC;
+        }
+        if (succFact.equals(getIntDef(curr))) {
+            // from the source of linear assignment (including
+            // self-update, e.g., x = x + 1) to the defined variable
+            return getLinearFunction(curr, ((DefinitionStmt<?, ?>) curr).getRValue());
+        }
+        return EdgeIdentity.get();
+    }
+
+    // ---------- value lattice ----------
+
+    @Override
+    public Value topValue() {
+        return Value.getUndef();
+    }
+
+    @Override
+    public Value bottomValue() {
+        return Value.getNAC();
+    }
+
+    @Override
+    public Value meet(Value v1, Value v2) {
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        }
+        if (v1.isUndef()) {
+            return v2;
+        }
+        if (v2.isUndef()) {
+            return v1;
+        }
+        return v1.equals(v2) ? v1 : Value.getNAC();
+    }
+
+    @Override
+    public EdgeFunction<Value> allTop() {
+        return LinearFunction.ALL_TOP;
+    }
+
+    // ---------- helpers ----------
+
+    /**
+     * @return the variable defined by the given statement if it can
+     * hold int values, otherwise null.
+     */
+    private static Var getIntDef(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> def
+                && def.getLValue() instanceof Var var
+                && ConstantPropagation.canHoldInt(var)) {
+            return var;
+        }
+        return null;
+    }
+
+    /**
+     * @return value of the right-hand side of the given definition statement
+     * evaluated on the constants before the statement.
+     */
+    private Value evaluate(Stmt stmt) {
+        Object rvalue = ((DefinitionStmt<?, ?>) stmt).getRValue();
+        return rvalue instanceof Exp exp
+                ? ConstantPropagation.evaluate(exp, getConstantsBefore(stmt))
+                : Value.getNAC();
+    }
+
+    /**
+     * @return value of the given operand before the given statement
+     * if it is a constant, otherwise null.
+     */
+    private Integer getConstantOperand(Stmt stmt, Var operand) {
+        if (operand.isTempConst()
+                && operand.getTempConstValue() instanceof IntLiteral literal) {
+            return literal.getValue();
+        }
+        Value value = getConstantsBefore(stmt).get(operand);
+        return value.isConstant() ? value.getConstant() : null;
+    }
+
+    /**
+     * @return the constants before the given statement given by
+     * intra-procedural constant propagation and the known constants.
+     */
+    private CPFact getConstantsBefore(Stmt stmt) {
+        return constantsBefore.computeIfAbsent(stmt, s -> {
+            DataflowResult<Stmt, CPFact> intraResult = intraResults.computeIfAbsent(
+                    icfg.getContainingMethodOf(s),
+                    m -> intraSolver.solve(CSRCFG.freeze(
+                            m.getIR().getResult(CFGBuilder.ID))));
+            CPFact constants = new CPFact();
+            intraResult.getInFact(s).forEach((var, value) -> {
+                if (value.isConstant()) {
+                    constants.update(var, value);
+                }
+            });
+            CPFact known = knownConstants.get(s);
+            if (known != null) {
+                known.forEach((var, value) -> {
+                    if (value.isConstant() && !constants.get(var).isConstant()) {
+                        constants.update(var, value);
+                    }
+                });
+            }
+            return constants;
+        });
+    }
+
+    /**
+     * @return the variable v if the given right-hand side of the given
+     * statement is of the form a*v+b, otherwise null.
+     */
+    private Var getLinearSource(Stmt stmt, Object rvalue) {
+        if (rvalue instanceof Var var) {
+            return ConstantPropagation.canHoldInt(var) ? var : null;
+        }
+        if (rvalue instanceof ArithmeticExp exp) {
+            Var v1 = exp.getOperand1(), v2 = exp.getOperand2();
+            boolean c1 = getConstantOperand(stmt, v1) != null;
+            boolean c2 = getConstantOperand(stmt, v2) != null;
+            switch (exp.getOperator()) {
+                case ADD, MUL -> {
+                    if (c1 != c2) {
+                        return c1 ? v2 : v1;
+                    }
+                }
+                case SUB -> {
+                    if (c1 != c2) {
+                        return c2 ? v1 : v2;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the edge function from the source of the given linear
+     * right-hand side to the variable defined by the given statement.
+     */
+    private EdgeFunction<Value> getLinearFunction(Stmt stmt, Object rvalue) {
+        if (rvalue instanceof ArithmeticExp exp) {
+            Integer c2 = getConstantOperand(stmt, exp.getOperand2());
+            int c = c2 != null ? c2 : getConstantOperand(stmt, exp.getOperand1());
+            return switch (exp.getOperator()) {
+                case ADD -> LinearFunction.of(1, c);
+                case MUL -> LinearFunction.of(c, 0);
+                case SUB -> c2 != null
+                        ? LinearFunction.of(1, -c) // v - c
+                        : LinearFunction.of(-1, c); // c - v
+                default -> LinearFunction.ALL_NAC;
+            };
+        }
+        return EdgeIdentity.get();
+    }
+
+    /**
+     * Edge functions of linear constant propagation: λx.a*x+b
+     * (λx.b if a is 0), λx.NAC and λx.UNDEF.
+     */
+    private static final class LinearFunction implements EdgeFunction<Value> {
+
+        private static final LinearFunction ALL_NAC = new LinearFunction(0, 0, true);
+
+        private static final EdgeFunction<Value> ALL_TOP = new AllTop<>(Value.getUndef());
+
+        private final int a;
+
+        private final int b;
+
+        private final boolean nac;
+
+        private LinearFunction(int a, int b, boolean nac) {
+            this.a = a;
+            this.b = b;
+            this.nac = nac;
+        }
+
+        private static EdgeFunction<Value> of(int a, int b) {
+            return a == 1 && b == 0 ? EdgeIdentity.get() : new LinearFunction(a, b, false);
+        }
+
+        private static EdgeFunction<Value> constant(int c) {
+            return new LinearFunction(0, c, false);
+        }
+
+        @Override
+        public Value computeTarget(Value source) {
+            if (nac) {
+                return Value.getNAC();
+            }
+            if (a == 0) {
+                return Value.makeConstant(b);
+            }
+            if (source.isConstant()) {
+                return Value.makeConstant(a * source.getConstant() + b);
+            }
+            return source;
+        }
+
+        @Override
+        public EdgeFunction<Value> composeWith(EdgeFunction<Value> second) {
+            if (second instanceof LinearFunction f) {
+                if (f.nac || f.a == 0) {
+                    return f;
+                }
+                return nac ? this : of(f.a * a, f.a * b + f.b);
+            }
+            if (second instanceof EdgeIdentity) {
+                return this;
+            }
+            return second; // all-top
+        }
+
+        @Override
+        public EdgeFunction<Value> meetWith(EdgeFunction<Value> other) {
+            if (other instanceof AllTop || this.equals(other)) {
+                return this;
+            }
+            return ALL_NAC;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LinearFunction f
+                    && a == f.a && b == f.b && nac == f.nac;
+        }
+
+        @Override
+        public int hashCode() {
+            return nac ? -1 : 31 * a + b;
+        }
+
+        @Override
+        public String toString() {
+            return nac ? "λx.NAC" : "λx." + a + "*x+" + b;
+        }
+    }
+}
@@ -22,12 +22,20 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
-import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactSerializer;
+import pascal.taie.analysis.dataflow.inter.ide.IDESolver;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
@@ -39,8 +47,16 @@ import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -50,13 +66,108 @@ public class InterConstantPropagation extends
 
     public static final String ID = "inter-constprop";
 
+    private static final Logger logger = LogManager.getLogger(InterConstantPropagation.class);
+
     private final ConstantPropagation cp;
 
+    /**
+     * Argument-to-parameter maps of the call edges which have been
+     * transferred. The map is concurrent as the edges may be transferred
+     * by multiple threads.
+     */
+    private final ConcurrentMap<CallEdge<Stmt>, ArgMap> argMaps =
+            Maps.newConcurrentMap();
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
     }
 
+    /**
+     * Solves the analysis by {@link InterSolver}, or by {@link IDESolver}
+     * if option "solver" is "ide". In the latter case, the IDE problem is
+     * solved in rounds, each of which takes the constants found by previous
+     * round to evaluate the assignments that are not linear, until no more
+     * constants are found. The IN fact of each node is given by the IDE
+     * results, and the OUT fact is obtained by applying the node transfer
+     * function to the IN fact.
+     * <p>
+     * If option "incremental" gives a snapshot file, the analysis is solved
+     * incrementally by {@link #analyzeIncrementally(File)}.
+     */
+    @Override
+    public Object analyze() {
+        if (!"ide".equals(getOptions().getString("solver"))) {
+            String snapshot = getOptions().getString("incremental");
+            return snapshot == null ? super.analyze()
+                    : analyzeIncrementally(new File(snapshot));
+        }
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        Map<Stmt, CPFact> inFacts = Map.of();
+        while (true) {
+            IDESolver<JMethod, Stmt, Var, Value> ideSolver = new IDESolver<>(
+                    new IDEConstantPropagation(icfg, inFacts));
+            ideSolver.solve();
+            Map<Stmt, CPFact> newInFacts = Maps.newMap(icfg.getNumberOfNodes());
+            for (Stmt node : icfg) {
+                CPFact in = newInitialFact();
+                ideSolver.getValuesAt(node).forEach(in::update);
+                newInFacts.put(node, in);
+            }
+            if (newInFacts.equals(inFacts)) {
+                break;
+            }
+            inFacts = newInFacts;
+        }
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        inFacts.forEach((node, in) -> {
+            CPFact out = newInitialFact();
+            transferNode(node, in, out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        });
+        return result;
+    }
+
+    /**
+     * Solves the analysis by {@link InterSolver} incrementally, reusing the
+     * result of previous run stored in given snapshot file, and then stores
+     * the new result to the file. Only the methods changed since previous
+     * run and the nodes reachable from them are solved again.
+     * <p>
+     * The analysis is solved from scratch if the snapshot is absent, or
+     * the ICFG is built on demand, as changed methods may not be found
+     * before the solver reaches them.
+     */
+    private DataflowResult<Stmt, CPFact> analyzeIncrementally(File file) {
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        initialize();
+        solver = newInterSolver();
+        CPSnapshot snapshot = icfg instanceof LazyICFG ? null
+                : CPSnapshot.read(file, icfg);
+        DataflowResult<Stmt, CPFact> result;
+        if (snapshot != null) {
+            logger.info("{} methods are changed since previous run",
+                    snapshot.getNumberOfChangedMethods());
+            result = solver.solve(snapshot.getResult(), snapshot.getChangedNodes());
+        } else {
+            result = solver.solve();
+        }
+        finish();
+        CPSnapshot.write(file, icfg, result);
+        return result;
+    }
+
+    @Override
+    protected FactSerializer<JMethod, CPFact> getFactSerializer() {
+        return new CPFactSerializer();
+    }
+
+    @Override
+    protected void finish() {
+        argMaps.clear();
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
@@ -100,17 +211,48 @@ public class InterConstantPropagation extends
         return transfer;
     }
 
+    @Override
+    protected void transferNormalEdgeInto(
+            NormalEdge<Stmt> edge, CPFact out, CPFact target) {
+        meetInto(out, target);
+    }
+
+    @Override
+    protected void transferCallToReturnEdgeInto(
+            CallToReturnEdge<Stmt> edge, CPFact out, CPFact target) {
+        Var lv = ((Invoke) edge.getSource()).getLValue();
+        for (Var var : out.keySet()) {
+            if (var != lv) {
+                target.update(var, cp.meetValue(out.get(var), target.get(var)));
+            }
+        }
+    }
+
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
+        JMethod callee = edge.getCallee();
+        Invoke callSite = (Invoke) edge.getSource();
         CPFact transfer = new CPFact();
-        List<Var> args = edge.getCallee().getIR().getParams();
-        InvokeExp rvExp = ((Invoke) edge.getSource()).getRValue();
+        List<Var> args = callee.getIR().getParams();
+        InvokeExp rvExp = callSite.getRValue();
         for (int i = 0; i < args.size(); ++i) {
             transfer.update(args.get(i), callSiteOut.get(rvExp.getArg(i)));
         }
         return transfer;
     }
 
+    @Override
+    protected void transferCallEdgeInto(
+            CallEdge<Stmt> edge, CPFact callSiteOut, CPFact target) {
+        ArgMap argMap = argMaps.computeIfAbsent(edge, ArgMap::of);
+        Var[] args = argMap.args();
+        Var[] params = argMap.params();
+        for (int i = 0; i < params.length; ++i) {
+            target.update(params[i],
+                    cp.meetValue(callSiteOut.get(args[i]), target.get(params[i])));
+        }
+    }
+
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         CPFact transfer = new CPFact();
@@ -122,4 +264,72 @@ public class InterConstantPropagation extends
         }
         return transfer;
     }
+
+    @Override
+    protected void transferReturnEdgeInto(
+            ReturnEdge<Stmt> edge, CPFact returnOut, CPFact target) {
+        Var lv = ((Invoke) edge.getCallSite()).getLValue();
+        if (lv == null) {
+            return;
+        }
+        Value value = target.get(lv);
+        for (Var v : edge.getReturnVars()) {
+            value = cp.meetValue(value, returnOut.get(v));
+        }
+        target.update(lv, value);
+    }
+
+    /**
+     * Serializes the variables in a fact by their indexes in the IR.
+     */
+    private static class CPFactSerializer implements FactSerializer<JMethod, CPFact> {
+
+        @Override
+        public void write(JMethod method, CPFact fact, DataOutputStream out)
+                throws IOException {
+            out.writeInt(fact.keySet().size());
+            for (Var var : fact.keySet()) {
+                Value value = fact.get(var);
+                out.writeInt(var.getIndex());
+                out.writeBoolean(value.isNAC());
+                if (value.isConstant()) {
+                    out.writeInt(value.getConstant());
+                }
+            }
+        }
+
+        @Override
+        public CPFact read(JMethod method, ByteBuffer buf) {
+            IR ir = method.getIR();
+            CPFact fact = new CPFact();
+            int size = buf.getInt();
+            for (int i = 0; i < size; ++i) {
+                Var var = ir.getVar(buf.getInt());
+                fact.update(var, buf.get() != 0 ? Value.getNAC()
+                        : Value.makeConstant(buf.getInt()));
+            }
+            return fact;
+        }
+    }
+
+    /**
+     * Arguments of a call site and the int parameters of a callee,
+     * where {@code args[i]} is passed to {@code params[i]}.
+     */
+    private record ArgMap(Var[] args, Var[] params) {
+
+        private static ArgMap of(CallEdge<Stmt> edge) {
+            List<Var> allParams = edge.getCallee().getIR().getParams();
+            InvokeExp invokeExp = ((Invoke) edge.getSource()).getRValue();
+            List<Var> args = new ArrayList<>(allParams.size());
+            List<Var> params = new ArrayList<>(allParams.size());
+            for (int i = 0; i < allParams.size(); ++i) {
+                if (ConstantPropagation.canHoldInt(allParams.get(i))) {
+                    args.add(invokeExp.getArg(i));
+                    params.add(allParams.get(i));
+                }
+            }
+            return new ArgMap(args.toArray(new Var[0]), params.toArray(new Var[0]));
+        }
+    }
 }
@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 
 /**
@@ -71,4 +72,20 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
+
+    /**
+     * Applies edge transfer function on the OUT fact of source node of
+     * the edge, and meets the result into given target fact.
+     * The default implementation meets the result of
+     * {@link #transferEdge(ICFGEdge, Object)} into target fact, and
+     * the analysis can override this method to do both in one step
+     * without creating intermediate facts.
+     *
+     * @param edge   the ICFG edge that the transfer function is applied on.
+     * @param out    the OUT fact of source node of the edge.
+     * @param target the fact which the result is met into.
+     */
+    default void transferEdgeInto(ICFGEdge<Node> edge, Fact out, Fact target) {
+        meetInto(transferEdge(edge, out), target);
+    }
 }
@@ -22,18 +22,21 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
-import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactSerializer;
+import pascal.taie.analysis.dataflow.fact.ShardedDataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
-import pascal.taie.util.collection.SetQueue;
-import polyglot.util.UniqueID;
+import pascal.taie.util.collection.Sets;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Solver for inter-procedural data-flow analysis.
@@ -42,13 +45,34 @@ import java.util.stream.Collectors;
  */
 class InterSolver<Method, Node, Fact> {
 
-    private final InterDataflowAnalysis<Node, Fact> analysis;
+    private static final Logger logger = LogManager.getLogger(InterSolver.class);
 
-    private final ICFG<Method, Node> icfg;
+    protected final InterDataflowAnalysis<Node, Fact> analysis;
 
-    private DataflowResult<Node, Fact> result;
+    protected final ICFG<Method, Node> icfg;
 
-    private Queue<Node> workList;
+    protected DataflowResult<Node, Fact> result;
+
+    private PriorityWorkList<Method, Node> workList;
+
+    /**
+     * Nodes of the methods added to the ICFG during solving,
+     * if the ICFG is built on demand.
+     */
+    private final List<Set<Node>> newNodes = new ArrayList<>();
+
+    /**
+     * Nodes initially added to the work-list.
+     */
+    private Collection<Node> seeds;
+
+    /**
+     * Serializer of the facts spilled to disk, or null if the result
+     * is kept in memory entirely.
+     */
+    private FactSerializer<Method, Fact> serializer;
+
+    private long heapBudget;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
@@ -56,16 +80,100 @@ class InterSolver<Method, Node, Fact> {
         this.icfg = icfg;
     }
 
+    /**
+     * Makes this solver keep the result in per-method shards, which are
+     * spilled to disk when they exceed given heap budget (in bytes).
+     *
+     * @see ShardedDataflowResult
+     */
+    void setSpilling(FactSerializer<Method, Fact> serializer, long heapBudget) {
+        this.serializer = serializer;
+        this.heapBudget = heapBudget;
+    }
+
     DataflowResult<Node, Fact> solve() {
-        result = new DataflowResult<>();
+        result = newResult();
+        icfg.addListener((method, nodes) -> newNodes.add(nodes));
         initialize();
+        seeds = icfg.getNodes();
         doSolve();
         return result;
     }
 
-    private void initialize() {
-        List<Node> entries = icfg.entryMethods().map(icfg::getEntryOf).toList();
+    /**
+     * Solves the analysis incrementally, reusing the result of a previous
+     * run of the analysis on an older version of the program.
+     * <p>
+     * The nodes affected by the changes, i.e., the nodes reachable from
+     * the changed nodes in the ICFG, are reset to their initial facts and
+     * solved again. Other nodes keep their previous facts, which are not
+     * affected by the changes, and the result is the same as solving
+     * the analysis from scratch.
+     *
+     * @param previous result of the previous run. The nodes without facts
+     *                 in it are regarded as changed.
+     * @param changed  the nodes whose statements or callees were changed.
+     */
+    DataflowResult<Node, Fact> solve(DataflowResult<Node, Fact> previous,
+                                     Set<Node> changed) {
+        result = newResult();
+        icfg.addListener((method, nodes) -> newNodes.add(nodes));
+        initialize();
+        Set<Node> affected = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node n : icfg.getNodes()) {
+            if ((changed.contains(n) || previous.getInFact(n) == null)
+                    && affected.add(n)) {
+                stack.push(n);
+            }
+        }
+        while (!stack.isEmpty()) {
+            for (Node succ : icfg.getSuccsOf(stack.pop())) {
+                if (affected.add(succ)) {
+                    stack.push(succ);
+                }
+            }
+        }
+        for (Node n : icfg.getNodes()) {
+            if (!affected.contains(n)) {
+                result.setInFact(n, previous.getInFact(n));
+                result.setOutFact(n, previous.getOutFact(n));
+                releaseFacts();
+            }
+        }
+        logger.info("{} of {} ICFG nodes are affected by changes",
+                affected.size(), icfg.getNumberOfNodes());
+        seeds = affected;
+        doSolve();
+        return result;
+    }
 
+    private DataflowResult<Node, Fact> newResult() {
+        return serializer == null ? new DataflowResult<>()
+                : new ShardedDataflowResult<>(
+                        icfg::getContainingMethodOf, serializer, heapBudget);
+    }
+
+    /**
+     * Declares that the facts obtained from the result so far are not used
+     * any more, so that they can be spilled to disk.
+     */
+    protected void releaseFacts() {
+        if (result instanceof ShardedDataflowResult<?, ?, ?> sharded) {
+            sharded.release();
+        }
+    }
+
+    /**
+     * @return the result computed by this solver so far.
+     */
+    DataflowResult<Node, Fact> getResult() {
+        return result;
+    }
+
+    private void initialize() {
+        Set<Node> entries = Sets.newSet();
+        icfg.entryMethods().map(icfg::getEntryOf).forEach(entries::add);
         for (Node n : icfg.getNodes()) {
             if (entries.contains(n)) {
                 result.setInFact(n, analysis.newBoundaryFact(n));
@@ -74,23 +182,54 @@ class InterSolver<Method, Node, Fact> {
                 result.setInFact(n, analysis.newInitialFact());
                 result.setOutFact(n, analysis.newInitialFact());
             }
+            releaseFacts();
         }
     }
 
-    private void doSolve() {
-        workList = new LinkedList<>(icfg.getNodes());
-        workList.addAll(icfg.getNodes());
+    protected void doSolve() {
+        workList = new PriorityWorkList<>(icfg);
+        workList.addAll(seeds);
+        addNewNodes();
         while (!workList.isEmpty()) {
+            releaseFacts();
             Node cur = workList.poll();
-            for (ICFGEdge<Node> e : icfg.getInEdgesOf(cur)) {
-                analysis.meetInto(
-                        analysis.transferEdge(e, result.getOutFact(e.getSource())),
-                        result.getInFact(cur)
-                );
+            Set<ICFGEdge<Node>> inEdges = icfg.getInEdgesOf(cur);
+            Set<Node> succs = icfg.getSuccsOf(cur);
+            if (!newNodes.isEmpty()) {
+                // querying the edges may add methods to the ICFG
+                addNewNodes();
+            }
+            Fact in = result.getInFact(cur);
+            for (ICFGEdge<Node> e : inEdges) {
+                analysis.transferEdgeInto(e, result.getOutFact(e.getSource()), in);
+            }
+            Fact out = result.getOutFact(cur);
+            if (analysis.transferNode(cur, in, out)) {
+                workList.addAll(succs);
             }
-            if (analysis.transferNode(cur, result.getInFact(cur), result.getOutFact(cur))) {
-                workList.addAll(icfg.getSuccsOf(cur));
+        }
+        if (result instanceof ShardedDataflowResult<?, ?, ?> sharded) {
+            // the clients of the result only read the facts
+            sharded.setReadOnly();
+            sharded.logStatistics();
+        }
+    }
+
+    /**
+     * Initializes the facts of the nodes added to the ICFG during solving,
+     * and adds them to the work-list.
+     */
+    private void addNewNodes() {
+        for (Set<Node> nodes : newNodes) {
+            for (Node n : nodes) {
+                if (result.getInFact(n) == null) {
+                    result.setInFact(n, analysis.newInitialFact());
+                    result.setOutFact(n, analysis.newInitialFact());
+                }
             }
+            workList.addNodes(nodes);
+            workList.addAll(nodes);
         }
+        newNodes.clear();
     }
 }
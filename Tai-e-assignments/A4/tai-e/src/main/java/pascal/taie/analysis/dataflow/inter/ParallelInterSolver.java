@@ -0,0 +1,210 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel solver for inter-procedural data-flow analysis.
+ * <p>
+ * ICFG nodes are partitioned by their containing methods, and each method
+ * has its own work-list. The facts of the nodes in a method are owned by
+ * the method, i.e., they are only read and updated by the task that
+ * processes the method, and at most one such task runs at a time.
+ * Tasks of the methods with pending work are scheduled on a work-stealing
+ * pool. Facts flowing along the edges between different methods (i.e.,
+ * call and return edges) are sent as copies to lock-free inboxes of the
+ * target methods, and each method keeps the latest copy for each of its
+ * incoming edges. As facts only go down the lattice and all messages are
+ * processed before the pool becomes quiescent, this solver reaches the
+ * same fixed point as {@link InterSolver}.
+ * <p>
+ * The analysis must tolerate concurrent calls of its transfer functions
+ * on different methods. A copy of a fact is made by meeting it into a new
+ * initial fact.
+ */
+class ParallelInterSolver<Method, Node, Fact> extends InterSolver<Method, Node, Fact> {
+
+    private final int parallelism;
+
+    /**
+     * Worker of the method containing each node.
+     */
+    private Map<Node, MethodWorker> workers;
+
+    private ForkJoinPool pool;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ParallelInterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                        ICFG<Method, Node> icfg, int parallelism) {
+        super(analysis, icfg);
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    protected void doSolve() {
+        Map<Method, MethodWorker> methodWorkers = Maps.newMap();
+        workers = Maps.newMap(icfg.getNumberOfNodes());
+        for (Node node : icfg) {
+            MethodWorker worker = methodWorkers.computeIfAbsent(
+                    icfg.getContainingMethodOf(node), m -> new MethodWorker());
+            workers.put(node, worker);
+            worker.add(node);
+        }
+        for (Node node : icfg) {
+            MethodWorker worker = workers.get(node);
+            for (ICFGEdge<Node> e : icfg.getInEdgesOf(node)) {
+                if (workers.get(e.getSource()) != worker) {
+                    // initially, sources of all edges have initial facts,
+                    // as entry nodes have only intra-procedural out edges
+                    worker.inputs.put(e, analysis.newInitialFact());
+                }
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+        try {
+            methodWorkers.values().forEach(MethodWorker::schedule);
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AnalysisException("Failed to solve " + analysis,
+                    failure.get());
+        }
+    }
+
+    private Fact copy(Fact fact) {
+        Fact copy = analysis.newInitialFact();
+        analysis.meetInto(fact, copy);
+        return copy;
+    }
+
+    private record Message<Node, Fact>(ICFGEdge<Node> edge, Fact fact) {
+    }
+
+    /**
+     * Processes the nodes of a method.
+     */
+    private class MethodWorker {
+
+        private final Queue<Message<Node, Fact>> inbox = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final Queue<Node> workList = new ArrayDeque<>();
+
+        private final Set<Node> pending = Sets.newSet();
+
+        /**
+         * Latest facts flowing along the in edges from other methods.
+         */
+        private final Map<ICFGEdge<Node>, Fact> inputs = Maps.newMap();
+
+        private void add(Node node) {
+            if (pending.add(node)) {
+                workList.add(node);
+            }
+        }
+
+        /**
+         * Sends the fact flowing along given edge to this worker.
+         * This method can be called by any thread.
+         */
+        private void send(ICFGEdge<Node> edge, Fact fact) {
+            inbox.add(new Message<>(edge, fact));
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                pool.execute(this::run);
+            }
+        }
+
+        private void run() {
+            try {
+                do {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    Message<Node, Fact> message;
+                    while ((message = inbox.poll()) != null) {
+                        inputs.put(message.edge(), message.fact());
+                        add(message.edge().getTarget());
+                    }
+                    while (!workList.isEmpty()) {
+                        Node node = workList.poll();
+                        pending.remove(node);
+                        process(node);
+                    }
+                    scheduled.set(false);
+                    // a message may arrive after the inbox was drained but
+                    // before this worker was unscheduled
+                } while (!inbox.isEmpty() && scheduled.compareAndSet(false, true));
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        private void process(Node node) {
+            Fact in = result.getInFact(node);
+            for (ICFGEdge<Node> e : icfg.getInEdgesOf(node)) {
+                Fact out = inputs.get(e);
+                analysis.transferEdgeInto(e,
+                        out != null ? out : result.getOutFact(e.getSource()), in);
+            }
+            Fact out = result.getOutFact(node);
+            if (analysis.transferNode(node, in, out)) {
+                Fact copy = null;
+                for (ICFGEdge<Node> e : icfg.getOutEdgesOf(node)) {
+                    MethodWorker target = workers.get(e.getTarget());
+                    if (target == this) {
+                        add(e.getTarget());
+                    } else {
+                        if (copy == null) {
+                            copy = copy(out);
+                        }
+                        target.send(e, copy);
+                    }
+                }
+            }
+        }
+    }
+}
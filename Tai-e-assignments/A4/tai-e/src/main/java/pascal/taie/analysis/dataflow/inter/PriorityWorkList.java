@@ -0,0 +1,220 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.GraphKernels;
+import pascal.taie.util.graph.IndexedGraph;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list of ICFG nodes which holds each node at most once, and yields
+ * the nodes by their priorities.
+ * <p>
+ * The priority of a node is given by the position of its containing method
+ * in a topological order of the call graph (callers before callees), and
+ * then by the position of the node in the reverse postorder of its method.
+ * Nodes are polled in sweeps: each sweep yields the pending nodes in
+ * priority order, and nodes added behind the current position (e.g.,
+ * the targets of back edges and of return edges) are deferred to the
+ * next sweep.
+ */
+class PriorityWorkList<Method, Node> {
+
+    /**
+     * Nodes sorted by their priorities.
+     */
+    private final List<Node> nodes;
+
+    private final Map<Node, Integer> priorities;
+
+    private final BitSet pending;
+
+    /**
+     * Position of the current sweep.
+     */
+    private int cursor = 0;
+
+    private int size = 0;
+
+    PriorityWorkList(ICFG<Method, Node> icfg) {
+        nodes = new ArrayList<>(icfg.getNumberOfNodes());
+        // the ICFG may grow while its nodes are ordered, see addNodes()
+        priorities = Maps.newMap();
+        pending = new BitSet(icfg.getNumberOfNodes());
+        for (Method method : sortMethods(icfg)) {
+            for (Node node : reversePostOrder(icfg, method)) {
+                priorities.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+        // nodes unreachable from the entries of their methods
+        for (Node node : icfg) {
+            if (!priorities.containsKey(node)) {
+                priorities.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+    }
+
+    /**
+     * @return methods containing the ICFG nodes in topological order of
+     * the call graph, where methods in the same strongly connected component
+     * are adjacent.
+     */
+    private static <Method, Node> List<Method> sortMethods(ICFG<Method, Node> icfg) {
+        // only the methods having nodes in the ICFG are sorted
+        SimpleGraph<Method> callGraph = new SimpleGraph<>();
+        for (Node node : icfg) {
+            callGraph.addNode(icfg.getContainingMethodOf(node));
+        }
+        for (Node node : icfg) {
+            if (icfg.isCallSite(node)) {
+                Method caller = icfg.getContainingMethodOf(node);
+                for (Method callee : icfg.getCalleesOf(node)) {
+                    if (callGraph.hasNode(callee)) {
+                        callGraph.addEdge(caller, callee);
+                    }
+                }
+            }
+        }
+        IndexedGraph<Method> graph = IndexedGraph.of(callGraph);
+        int[] comp = GraphKernels.scc(graph);
+        // components are numbered in reverse topological order
+        int nComps = 0;
+        for (int c : comp) {
+            nComps = Math.max(nComps, c + 1);
+        }
+        int[] offsets = new int[nComps + 1];
+        for (int c : comp) {
+            ++offsets[nComps - c];
+        }
+        for (int i = 0; i < nComps; ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] order = new int[graph.size()];
+        for (int i = 0; i < graph.size(); ++i) {
+            order[offsets[nComps - 1 - comp[i]]++] = i;
+        }
+        List<Method> methods = new ArrayList<>(order.length);
+        for (int i : order) {
+            methods.add(graph.getNode(i));
+        }
+        return methods;
+    }
+
+    /**
+     * @return nodes of given method reachable from its entry via
+     * intra-procedural edges, in reverse postorder.
+     */
+    private static <Method, Node> List<Node> reversePostOrder(
+            ICFG<Method, Node> icfg, Method method) {
+        Node entry = icfg.getEntryOf(method);
+        List<Node> postOrder = new ArrayList<>();
+        Set<Node> visited = Sets.newSet();
+        List<Node> stack = new ArrayList<>();
+        List<Iterator<Node>> iters = new ArrayList<>();
+        visited.add(entry);
+        stack.add(entry);
+        iters.add(icfg.getSuccsOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            Iterator<Node> it = iters.get(top);
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (icfg.getContainingMethodOf(succ) == method
+                        && visited.add(succ)) {
+                    stack.add(succ);
+                    iters.add(icfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.add(stack.remove(top));
+                iters.remove(top);
+            }
+        }
+        List<Node> order = new ArrayList<>(postOrder.size());
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            order.add(postOrder.get(i));
+        }
+        return order;
+    }
+
+    /**
+     * Gives priorities to the nodes added to the ICFG after this work-list
+     * was created. Such nodes have lower priorities than the existing ones,
+     * and they are prioritized in the given order.
+     */
+    void addNodes(Iterable<? extends Node> newNodes) {
+        for (Node node : newNodes) {
+            if (!priorities.containsKey(node)) {
+                priorities.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+    }
+
+    /**
+     * Adds given node to this work-list if it is not in the work-list.
+     */
+    void add(Node node) {
+        int p = priorities.get(node);
+        if (!pending.get(p)) {
+            pending.set(p);
+            ++size;
+        }
+    }
+
+    void addAll(Iterable<? extends Node> nodes) {
+        for (Node node : nodes) {
+            add(node);
+        }
+    }
+
+    /**
+     * Removes and returns the next node of current sweep, or of
+     * the next sweep if current one is finished.
+     */
+    Node poll() {
+        int p = pending.nextSetBit(cursor);
+        if (p < 0) {
+            p = pending.nextSetBit(0);
+        }
+        pending.clear(p);
+        cursor = p + 1;
+        --size;
+        return nodes.get(p);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
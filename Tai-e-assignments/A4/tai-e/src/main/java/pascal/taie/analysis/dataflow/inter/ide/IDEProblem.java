@@ -0,0 +1,124 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter.ide;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Template interface for defining IDE problems, i.e., inter-procedural
+ * distributive environment problems, which are solved by {@link IDESolver}.
+ * <p>
+ * An IFDS problem is an IDE problem whose edge functions are all identity,
+ * which are the defaults of this interface; its results are given by
+ * {@link IDESolver#getFactsAt(Object)}.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of ICFG nodes
+ * @param <D>      type of data-flow facts
+ * @param <V>      type of values of the facts
+ */
+public interface IDEProblem<Method, Node, D, V> {
+
+    ICFG<Method, Node> getICFG();
+
+    /**
+     * @return the special fact which holds at every reachable node.
+     */
+    D zeroValue();
+
+    /**
+     * @return the facts holding at the given nodes when the analysis starts.
+     * Usually, these are the zero fact at the entries of the entry methods.
+     */
+    Map<Node, Set<D>> initialSeeds();
+
+    // ---------- flow functions ----------
+
+    /**
+     * @return flow function for the intra-procedural edge from
+     * a non-call node to its successor.
+     */
+    FlowFunction<D> getNormalFlowFunction(Node curr, Node succ);
+
+    /**
+     * @return flow function from a call site to the entry of its callee.
+     */
+    FlowFunction<D> getCallFlowFunction(Node callSite, Method callee);
+
+    /**
+     * @return flow function from the exit of a callee to a return site
+     * of the call site.
+     */
+    FlowFunction<D> getReturnFlowFunction(Node callSite, Method callee,
+                                          Node exit, Node returnSite);
+
+    /**
+     * @return flow function from a call site to its return site,
+     * which bypasses the callees.
+     */
+    FlowFunction<D> getCallToReturnFlowFunction(Node callSite, Node returnSite);
+
+    // ---------- edge functions ----------
+
+    default EdgeFunction<V> getNormalEdgeFunction(
+            Node curr, D currFact, Node succ, D succFact) {
+        return EdgeIdentity.get();
+    }
+
+    default EdgeFunction<V> getCallEdgeFunction(
+            Node callSite, D callFact, Method callee, D calleeFact) {
+        return EdgeIdentity.get();
+    }
+
+    default EdgeFunction<V> getReturnEdgeFunction(
+            Node callSite, Method callee, Node exit, D exitFact,
+            Node returnSite, D returnFact) {
+        return EdgeIdentity.get();
+    }
+
+    default EdgeFunction<V> getCallToReturnEdgeFunction(
+            Node callSite, D callFact, Node returnSite, D returnFact) {
+        return EdgeIdentity.get();
+    }
+
+    // ---------- value lattice ----------
+
+    /**
+     * @return the top value, i.e., the value of unreachable facts.
+     */
+    V topValue();
+
+    /**
+     * @return the bottom value, which is also the value of the seeds.
+     */
+    V bottomValue();
+
+    V meet(V v1, V v2);
+
+    default EdgeFunction<V> allTop() {
+        return new AllTop<>(topValue());
+    }
+}
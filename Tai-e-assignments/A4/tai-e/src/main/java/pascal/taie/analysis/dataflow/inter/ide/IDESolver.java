@@ -0,0 +1,434 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter.ide;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Tabulation solver for IDE problems, following the algorithm of
+ * Sagiv, Reps and Horwitz ("Precise Interprocedural Dataflow Analysis
+ * with Applications to Constant Propagation").
+ * <p>
+ * Phase 1 computes jump functions, i.e., the edge functions of the
+ * same-level realizable paths from the start point of a method to
+ * its nodes. The jump functions reaching the exit of a callee are
+ * recorded as end summaries of the callee, and the call sites reaching
+ * the start point of a callee are recorded as its incoming set. A callee
+ * is analyzed once for each fact at its start point, and its end
+ * summaries are reused by all of its call sites.
+ * Phase 2 computes the values of the facts at each node by applying
+ * the jump functions to the values at the start points.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of ICFG nodes
+ * @param <D>      type of data-flow facts
+ * @param <V>      type of values of the facts
+ */
+public class IDESolver<Method, Node, D, V> {
+
+    private static final Logger logger = LogManager.getLogger(IDESolver.class);
+
+    private final IDEProblem<Method, Node, D, V> problem;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final D zero;
+
+    private final EdgeFunction<V> allTop;
+
+    /**
+     * Jump functions: node -> target fact -> source fact (at the start
+     * point of the method containing the node) -> edge function.
+     */
+    private final Map<Node, Map<D, Map<D, EdgeFunction<V>>>> jumpFns = Maps.newMap();
+
+    /**
+     * End summaries: start point -> source fact -> exit fact -> edge function.
+     */
+    private final Map<Node, Map<D, Map<D, EdgeFunction<V>>>> endSummaries = Maps.newMap();
+
+    /**
+     * Incoming sets: start point -> source fact -> call site -> call site facts.
+     */
+    private final Map<Node, Map<D, Map<Node, Set<D>>>> incoming = Maps.newMap();
+
+    /**
+     * Call sites reached from each start point.
+     */
+    private final Map<Node, Set<Node>> callSites = Maps.newMap();
+
+    private final Queue<PathEdge<Node, D>> pathEdges = new ArrayDeque<>();
+
+    /**
+     * Values of the facts at each node, computed in phase 2.
+     */
+    private final Map<Node, Map<D, V>> values = Maps.newMap();
+
+    private long nPathEdges;
+
+    private long nSummaryReuses;
+
+    public IDESolver(IDEProblem<Method, Node, D, V> problem) {
+        this.problem = problem;
+        this.icfg = problem.getICFG();
+        this.zero = problem.zeroValue();
+        this.allTop = problem.allTop();
+    }
+
+    /**
+     * Solves the IDE problem. The results are available via
+     * {@link #getValueAt}, {@link #getValuesAt} and {@link #getFactsAt}.
+     */
+    public void solve() {
+        problem.initialSeeds().forEach((node, facts) -> facts.forEach(fact ->
+                propagate(zero, node, fact, EdgeIdentity.get())));
+        computeJumpFunctions();
+        computeValues();
+        logger.info("IDE: {} path edges, {} end summaries, {} summary reuses",
+                nPathEdges, endSummaries.values().stream()
+                        .mapToLong(Map::size).sum(),
+                nSummaryReuses);
+    }
+
+    // ---------- phase 1: jump functions ----------
+
+    private void computeJumpFunctions() {
+        while (!pathEdges.isEmpty()) {
+            PathEdge<Node, D> edge = pathEdges.poll();
+            ++nPathEdges;
+            Node node = edge.target();
+            if (icfg.isCallSite(node)) {
+                processCall(edge);
+            } else if (isExit(node)) {
+                processExit(edge);
+            } else {
+                processNormal(edge);
+            }
+        }
+    }
+
+    private void processNormal(PathEdge<Node, D> edge) {
+        Node node = edge.target();
+        D fact = edge.targetFact();
+        EdgeFunction<V> f = getJumpFn(edge.sourceFact(), node, fact);
+        for (Node succ : icfg.getSuccsOf(node)) {
+            for (D succFact : problem.getNormalFlowFunction(node, succ)
+                    .computeTargets(fact)) {
+                propagate(edge.sourceFact(), succ, succFact, f.composeWith(
+                        problem.getNormalEdgeFunction(node, fact, succ, succFact)));
+            }
+        }
+    }
+
+    private void processCall(PathEdge<Node, D> edge) {
+        Node callSite = edge.target();
+        D sourceFact = edge.sourceFact();
+        D callFact = edge.targetFact();
+        EdgeFunction<V> f = getJumpFn(sourceFact, callSite, callFact);
+        callSites.computeIfAbsent(getStartPointOf(callSite), __ -> Sets.newHybridSet())
+                .add(callSite);
+        for (Method callee : getCalleesOf(callSite)) {
+            Node start = icfg.getEntryOf(callee);
+            Node exit = icfg.getExitOf(callee);
+            for (D calleeFact : problem.getCallFlowFunction(callSite, callee)
+                    .computeTargets(callFact)) {
+                incoming.computeIfAbsent(start, __ -> Maps.newHybridMap())
+                        .computeIfAbsent(calleeFact, __ -> Maps.newHybridMap())
+                        .computeIfAbsent(callSite, __ -> Sets.newHybridSet())
+                        .add(callFact);
+                propagate(calleeFact, start, calleeFact, EdgeIdentity.get());
+                // reuse existing end summaries of the callee
+                Map<D, EdgeFunction<V>> summaries = getEndSummaries(start, calleeFact);
+                if (!summaries.isEmpty()) {
+                    ++nSummaryReuses;
+                }
+                EdgeFunction<V> callFn = problem.getCallEdgeFunction(
+                        callSite, callFact, callee, calleeFact);
+                summaries.forEach((exitFact, summary) -> {
+                    for (Node returnSite : icfg.getReturnSitesOf(callSite)) {
+                        for (D returnFact : problem.getReturnFlowFunction(
+                                callSite, callee, exit, returnSite)
+                                .computeTargets(exitFact)) {
+                            EdgeFunction<V> returnFn = problem.getReturnEdgeFunction(
+                                    callSite, callee, exit, exitFact,
+                                    returnSite, returnFact);
+                            propagate(sourceFact, returnSite, returnFact,
+                                    f.composeWith(callFn)
+                                            .composeWith(summary)
+                                            .composeWith(returnFn));
+                        }
+                    }
+                });
+            }
+        }
+        for (Node returnSite : icfg.getReturnSitesOf(callSite)) {
+            for (D returnFact : problem.getCallToReturnFlowFunction(callSite, returnSite)
+                    .computeTargets(callFact)) {
+                propagate(sourceFact, returnSite, returnFact,
+                        f.composeWith(problem.getCallToReturnEdgeFunction(
+                                callSite, callFact, returnSite, returnFact)));
+            }
+        }
+    }
+
+    private void processExit(PathEdge<Node, D> edge) {
+        Node exit = edge.target();
+        D sourceFact = edge.sourceFact();
+        D exitFact = edge.targetFact();
+        EdgeFunction<V> summary = getJumpFn(sourceFact, exit, exitFact);
+        Method method = icfg.getContainingMethodOf(exit);
+        Node start = icfg.getEntryOf(method);
+        Map<D, EdgeFunction<V>> summaries = endSummaries
+                .computeIfAbsent(start, __ -> Maps.newHybridMap())
+                .computeIfAbsent(sourceFact, __ -> Maps.newHybridMap());
+        if (summary.equals(summaries.put(exitFact, summary))) {
+            return;
+        }
+        // apply the new summary to the call sites reaching the start point
+        Map<Node, Set<D>> callers = incoming
+                .getOrDefault(start, Map.of())
+                .getOrDefault(sourceFact, Map.of());
+        callers.forEach((callSite, callFacts) -> {
+            for (Node returnSite : icfg.getReturnSitesOf(callSite)) {
+                for (D returnFact : problem.getReturnFlowFunction(
+                        callSite, method, exit, returnSite)
+                        .computeTargets(exitFact)) {
+                    EdgeFunction<V> returnFn = problem.getReturnEdgeFunction(
+                            callSite, method, exit, exitFact, returnSite, returnFact);
+                    for (D callFact : callFacts) {
+                        EdgeFunction<V> f = problem.getCallEdgeFunction(
+                                callSite, callFact, method, sourceFact)
+                                .composeWith(summary)
+                                .composeWith(returnFn);
+                        getJumpFnsTo(callSite, callFact).forEach((callerFact, callerFn) ->
+                                propagate(callerFact, returnSite, returnFact,
+                                        callerFn.composeWith(f)));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Meets the given function into the jump function of the path edge,
+     * and adds the path edge to the work-list if its jump function changes.
+     */
+    private void propagate(D sourceFact, Node target, D targetFact, EdgeFunction<V> f) {
+        Map<D, EdgeFunction<V>> fns = jumpFns
+                .computeIfAbsent(target, __ -> Maps.newHybridMap())
+                .computeIfAbsent(targetFact, __ -> Maps.newHybridMap());
+        EdgeFunction<V> old = fns.get(sourceFact);
+        EdgeFunction<V> newFn = old == null ? f : f.meetWith(old);
+        if (!newFn.equals(old)) {
+            fns.put(sourceFact, newFn);
+            pathEdges.add(new PathEdge<>(sourceFact, target, targetFact));
+        }
+    }
+
+    private EdgeFunction<V> getJumpFn(D sourceFact, Node target, D targetFact) {
+        EdgeFunction<V> f = getJumpFnsTo(target, targetFact).get(sourceFact);
+        return f != null ? f : allTop;
+    }
+
+    /**
+     * @return map from source facts to the jump functions reaching
+     * the given fact at the given node.
+     */
+    private Map<D, EdgeFunction<V>> getJumpFnsTo(Node target, D targetFact) {
+        return jumpFns.getOrDefault(target, Map.of())
+                .getOrDefault(targetFact, Map.of());
+    }
+
+    private Map<D, EdgeFunction<V>> getEndSummaries(Node start, D sourceFact) {
+        return endSummaries.getOrDefault(start, Map.of())
+                .getOrDefault(sourceFact, Map.of());
+    }
+
+    /**
+     * @return the callees of the given call site which are in the ICFG,
+     * i.e., the targets of the call edges from the call site.
+     */
+    private List<Method> getCalleesOf(Node callSite) {
+        List<Method> callees = new ArrayList<>();
+        for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(callSite)) {
+            if (edge instanceof CallEdge) {
+                callees.add(icfg.getContainingMethodOf(edge.getTarget()));
+            }
+        }
+        return callees;
+    }
+
+    private Node getStartPointOf(Node node) {
+        return icfg.getEntryOf(icfg.getContainingMethodOf(node));
+    }
+
+    private boolean isStartPoint(Node node) {
+        return node.equals(getStartPointOf(node));
+    }
+
+    private boolean isExit(Node node) {
+        return node.equals(icfg.getExitOf(icfg.getContainingMethodOf(node)));
+    }
+
+    // ---------- phase 2: values ----------
+
+    private void computeValues() {
+        // values at start points and call sites
+        Queue<NodeFact<Node, D>> workList = new ArrayDeque<>();
+        problem.initialSeeds().forEach((node, facts) -> facts.forEach(fact -> {
+            setValue(node, fact, problem.bottomValue());
+            workList.add(new NodeFact<>(node, fact));
+        }));
+        while (!workList.isEmpty()) {
+            NodeFact<Node, D> nodeFact = workList.poll();
+            Node node = nodeFact.node();
+            D fact = nodeFact.fact();
+            V value = getValueAt(node, fact);
+            if (icfg.isCallSite(node)) {
+                for (Method callee : getCalleesOf(node)) {
+                    Node start = icfg.getEntryOf(callee);
+                    for (D calleeFact : problem.getCallFlowFunction(node, callee)
+                            .computeTargets(fact)) {
+                        V v = problem.getCallEdgeFunction(node, fact, callee, calleeFact)
+                                .computeTarget(value);
+                        if (meetValue(start, calleeFact, v)) {
+                            workList.add(new NodeFact<>(start, calleeFact));
+                        }
+                    }
+                }
+            }
+            if (isStartPoint(node)) {
+                for (Node callSite : callSites.getOrDefault(node, Set.of())) {
+                    jumpFns.getOrDefault(callSite, Map.of()).forEach((callFact, fns) -> {
+                        EdgeFunction<V> f = fns.get(fact);
+                        if (f != null && meetValue(callSite, callFact,
+                                f.computeTarget(value))) {
+                            workList.add(new NodeFact<>(callSite, callFact));
+                        }
+                    });
+                }
+            }
+        }
+        // values at the other nodes
+        jumpFns.forEach((node, fns) -> {
+            if (icfg.isCallSite(node) || isStartPoint(node)) {
+                return;
+            }
+            Node start = getStartPointOf(node);
+            fns.forEach((fact, fromFns) -> fromFns.forEach((sourceFact, f) ->
+                    meetValue(node, fact, f.computeTarget(
+                            getValueAt(start, sourceFact)))));
+        });
+    }
+
+    /**
+     * Meets the given value into the value of the fact at the node.
+     *
+     * @return true if the value of the fact changes, otherwise false.
+     */
+    private boolean meetValue(Node node, D fact, V value) {
+        V old = getValueAt(node, fact);
+        V newValue = problem.meet(old, value);
+        if (!newValue.equals(old)) {
+            setValue(node, fact, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    private void setValue(Node node, D fact, V value) {
+        values.computeIfAbsent(node, __ -> Maps.newHybridMap()).put(fact, value);
+    }
+
+    // ---------- results ----------
+
+    /**
+     * @return the number of times that the end summaries of a callee
+     * have been reused at a call site, instead of analyzing the callee
+     * again for the call site.
+     */
+    public long getNumberOfSummaryReuses() {
+        return nSummaryReuses;
+    }
+
+    /**
+     * @return value of the given fact at the given node, or the top value
+     * if the fact does not hold at the node.
+     */
+    public V getValueAt(Node node, D fact) {
+        V value = values.getOrDefault(node, Map.of()).get(fact);
+        return value != null ? value : problem.topValue();
+    }
+
+    /**
+     * @return the facts (except the zero fact) and their values at
+     * the given node.
+     */
+    public Map<D, V> getValuesAt(Node node) {
+        Map<D, V> result = Maps.newHybridMap();
+        values.getOrDefault(node, Map.of()).forEach((fact, value) -> {
+            if (!fact.equals(zero)) {
+                result.put(fact, value);
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return the facts (except the zero fact) holding at the given node,
+     * i.e., the IFDS results of the problem.
+     */
+    public Set<D> getFactsAt(Node node) {
+        Set<D> result = Sets.newHybridSet();
+        jumpFns.getOrDefault(node, Map.of()).forEach((fact, fns) -> {
+            if (!fact.equals(zero) && !fns.isEmpty()) {
+                result.add(fact);
+            }
+        });
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Path edge from the source fact at the start point of a method
+     * to the target fact at the target node.
+     */
+    private record PathEdge<Node, D>(D sourceFact, Node target, D targetFact) {
+    }
+
+    private record NodeFact<Node, D>(Node node, D fact) {
+    }
+}
@@ -25,6 +25,10 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CSRCFG;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
@@ -34,11 +38,145 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // Unused
+        if (cfg instanceof CSRCFG csr) {
+            doSolveForward(csr, result);
+            return;
+        }
+        Queue<Node> workList = new ArrayDeque<>();
+        for (Node node : cfg) {
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = analysis.newInitialFact();
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            result.setInFact(node, in);
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                workList.addAll(cfg.getSuccsOf(node));
+            }
+        }
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // Unused
+        if (cfg instanceof CSRCFG csr) {
+            doSolveBackward(csr, result);
+            return;
+        }
+        Queue<Node> workList = new ArrayDeque<>();
+        for (Node node : cfg) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = analysis.newInitialFact();
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            result.setOutFact(node, out);
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                workList.addAll(cfg.getPredsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Solves on CSR-backed CFG by walking its index arrays, with a
+     * deduplicated worklist of node indexes.
+     */
+    private void doSolveForward(CSRCFG cfg, DataflowResult<Node, Fact> result) {
+        IntWorkList workList = new IntWorkList(cfg.size());
+        for (int i = 0; i < cfg.size(); ++i) {
+            if (cfg.getNode(i) != null && i != cfg.getEntryIndex()) {
+                workList.add(i);
+            }
+        }
+        while (!workList.isEmpty()) {
+            int i = workList.poll();
+            Node node = getNode(cfg, i);
+            Fact in = analysis.newInitialFact();
+            for (int k = 0; k < cfg.getPredCount(i); ++k) {
+                analysis.meetInto(result.getOutFact(getNode(cfg, cfg.getPred(i, k))), in);
+            }
+            result.setInFact(node, in);
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (int k = 0; k < cfg.getSuccCount(i); ++k) {
+                    workList.add(cfg.getSucc(i, k));
+                }
+            }
+        }
+    }
+
+    private void doSolveBackward(CSRCFG cfg, DataflowResult<Node, Fact> result) {
+        IntWorkList workList = new IntWorkList(cfg.size());
+        for (int i = 0; i < cfg.size(); ++i) {
+            if (cfg.getNode(i) != null && i != cfg.getExitIndex()) {
+                workList.add(i);
+            }
+        }
+        while (!workList.isEmpty()) {
+            int i = workList.poll();
+            Node node = getNode(cfg, i);
+            Fact out = analysis.newInitialFact();
+            for (int k = 0; k < cfg.getSuccCount(i); ++k) {
+                analysis.meetInto(result.getInFact(getNode(cfg, cfg.getSucc(i, k))), out);
+            }
+            result.setOutFact(node, out);
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (int k = 0; k < cfg.getPredCount(i); ++k) {
+                    workList.add(cfg.getPred(i, k));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node getNode(CSRCFG cfg, int i) {
+        return (Node) cfg.getNode(i);
+    }
+
+    /**
+     * FIFO queue of node indexes in [0, capacity) which ignores
+     * the indexes already in the queue.
+     */
+    private static class IntWorkList {
+
+        private final int[] queue;
+
+        private final boolean[] inQueue;
+
+        private int head;
+
+        private int size;
+
+        private IntWorkList(int capacity) {
+            queue = new int[capacity];
+            inQueue = new boolean[capacity];
+        }
+
+        private void add(int i) {
+            if (!inQueue[i]) {
+                inQueue[i] = true;
+                queue[(head + size++) % queue.length] = i;
+            }
+        }
+
+        private int poll() {
+            int i = queue[head];
+            head = (head + 1) % queue.length;
+            --size;
+            inQueue[i] = false;
+            return i;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
     }
 }
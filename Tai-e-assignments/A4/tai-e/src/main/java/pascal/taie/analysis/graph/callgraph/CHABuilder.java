@@ -36,21 +36,49 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the CHA algorithm.
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
-    private ClassHierarchy hierarchy;
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Filter of the call sites in dead code, or null if the call sites
+     * in dead code are not skipped.
+     */
+    private final DeadCodeFilter deadCodeFilter;
+
+    /**
+     * Creates a builder which resolves call sites on the given hierarchy.
+     *
+     * @param pruneDeadCode whether to skip the call sites in statically
+     *                      dead code
+     */
+    CHABuilder(ClassHierarchy hierarchy, boolean pruneDeadCode) {
+        this.hierarchy = hierarchy;
+        this.deadCodeFilter = pruneDeadCode ? new DeadCodeFilter() : null;
+    }
 
     @Override
     public CallGraph<Invoke, JMethod> build() {
-        hierarchy = World.get().getClassHierarchy();
         return buildCallGraph(World.get().getMainMethod());
     }
 
-    private static CallKind resolveCallKind(Invoke cs) {
+    /**
+     * @return the call sites in the given method which are to be resolved,
+     * i.e., the ones not in dead code.
+     */
+    Stream<Invoke> liveCallSitesIn(CallGraph<Invoke, JMethod> callGraph,
+                                   JMethod method) {
+        Stream<Invoke> callSites = callGraph.callSitesIn(method);
+        return deadCodeFilter == null ? callSites
+                : callSites.filter(deadCodeFilter::isLive);
+    }
+
+    static CallKind resolveCallKind(Invoke cs) {
         if (cs.isVirtual()) {
             return CallKind.VIRTUAL;
         }
@@ -77,7 +105,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         while (!wl.isEmpty()) {
             JMethod cur = wl.poll();
             if (!callGraph.addReachableMethod(cur)) continue;
-            callGraph.getCallSitesIn(cur).forEach(cs ->
+            liveCallSitesIn(callGraph, cur).forEach(cs ->
                     resolve(cs).forEach(m -> {
                         callGraph.addEdge(new Edge<>(resolveCallKind(cs), cs, m));
                         wl.add(m);
@@ -90,7 +118,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
-    private Set<JMethod> resolve(Invoke callSite) {
+    Set<JMethod> resolve(Invoke callSite) {
         Set<JMethod> T = new HashSet<>();
         MethodRef m = callSite.getMethodRef();
         if (callSite.isStatic()) {
@@ -128,13 +156,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * @return the dispatched target method, or null if no satisfying method
      * can be found.
      */
-    private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        JMethod mbMethod = jclass.getDeclaredMethod(subsignature);
-        if (mbMethod != null && !mbMethod.isAbstract()) {
-            return mbMethod;
-        }
-        JClass mbSuper = jclass.getSuperClass();
-        if (mbSuper == null) return null;
-        return dispatch(mbSuper, subsignature);
+    JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        return hierarchy.dispatch(jclass, subsignature);
     }
 }
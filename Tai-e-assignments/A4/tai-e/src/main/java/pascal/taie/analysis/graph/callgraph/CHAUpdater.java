@@ -0,0 +1,185 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassHierarchyListener;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incrementally maintains a CHA call graph when classes are added to
+ * the class hierarchy after the call graph has been built.
+ * <p>
+ * A new class can only introduce new targets to virtual and interface
+ * call sites whose method references are declared in its supertypes,
+ * so this updater indexes such call sites by the declaring classes of
+ * their method references, and dispatches only the affected call sites
+ * on the new class (and its subtypes). New edges and newly reachable
+ * methods are then propagated as in {@link CHABuilder}, and the changes
+ * are reported to the listeners of the call graph.
+ */
+class CHAUpdater implements ClassHierarchyListener {
+
+    private static final Logger logger = LogManager.getLogger(CHAUpdater.class);
+
+    private final ClassHierarchy hierarchy;
+
+    private final DefaultCallGraph callGraph;
+
+    private final CHABuilder resolver;
+
+    /**
+     * Map from each class to the virtual and interface call sites whose
+     * method references are declared in the class.
+     */
+    private final MultiMap<JClass, Invoke> dynamicCallSites = Maps.newMultiMap();
+
+    CHAUpdater(ClassHierarchy hierarchy, CHABuilder resolver,
+               DefaultCallGraph callGraph) {
+        this.hierarchy = hierarchy;
+        this.callGraph = callGraph;
+        this.resolver = resolver;
+        callGraph.reachableMethods().forEach(this::indexCallSites);
+    }
+
+    private void indexCallSites(JMethod method) {
+        resolver.liveCallSitesIn(callGraph, method).forEach(cs -> {
+            if (cs.isVirtual() || cs.isInterface()) {
+                dynamicCallSites.put(cs.getMethodRef().getDeclaringClass(), cs);
+            }
+        });
+    }
+
+    @Override
+    public void onClassAdded(JClass jclass) {
+        CallGraphDelta<Invoke, JMethod> delta = update(jclass);
+        if (!delta.isEmpty()) {
+            logger.info("Call graph updated for {}: {} new methods, {} new edges",
+                    jclass, delta.newMethods().size(), delta.newEdges().size());
+            callGraph.notifyUpdate(delta);
+        }
+    }
+
+    /**
+     * Updates the call graph for a class which has just been added to
+     * the class hierarchy.
+     *
+     * @return the changes made to the call graph.
+     */
+    CallGraphDelta<Invoke, JMethod> update(JClass jclass) {
+        List<JMethod> newMethods = new ArrayList<>();
+        List<Edge<Invoke, JMethod>> newEdges = new ArrayList<>();
+        Deque<JMethod> workList = new ArrayDeque<>();
+        List<JClass> subtypes = getSubtypesOf(jclass);
+        for (JClass supertype : getSupertypesOf(jclass)) {
+            for (Invoke cs : dynamicCallSites.get(supertype)) {
+                Subsignature subsig = cs.getMethodRef().getSubsignature();
+                for (JClass subtype : subtypes) {
+                    JMethod callee = resolver.dispatch(subtype, subsig);
+                    if (callee != null) {
+                        addEdge(cs, callee, newEdges, workList);
+                    }
+                }
+            }
+        }
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                newMethods.add(method);
+                indexCallSites(method);
+                resolver.liveCallSitesIn(callGraph, method).forEach(cs ->
+                        resolver.resolve(cs).forEach(callee ->
+                                addEdge(cs, callee, newEdges, workList)));
+            }
+        }
+        return new CallGraphDelta<>(newMethods, newEdges);
+    }
+
+    private void addEdge(Invoke cs, JMethod callee,
+                         List<Edge<Invoke, JMethod>> newEdges,
+                         Deque<JMethod> workList) {
+        Edge<Invoke, JMethod> edge = new Edge<>(
+                CHABuilder.resolveCallKind(cs), cs, callee);
+        if (callGraph.addEdge(edge)) {
+            newEdges.add(edge);
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * @return the given class and all its (direct and indirect)
+     * superclasses and superinterfaces.
+     */
+    private static Set<JClass> getSupertypesOf(JClass jclass) {
+        Set<JClass> supertypes = Sets.newSet();
+        Deque<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (supertypes.add(c)) {
+                if (c.getSuperClass() != null) {
+                    queue.add(c.getSuperClass());
+                }
+                queue.addAll(c.getInterfaces());
+            }
+        }
+        return supertypes;
+    }
+
+    /**
+     * @return the given class and all its (direct and indirect)
+     * subclasses, subinterfaces and implementors in the hierarchy.
+     */
+    private List<JClass> getSubtypesOf(JClass jclass) {
+        Set<JClass> visited = Sets.newSet();
+        List<JClass> subtypes = new ArrayList<>();
+        Deque<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (visited.add(c)) {
+                subtypes.add(c);
+                if (c.isInterface()) {
+                    queue.addAll(hierarchy.getDirectSubinterfacesOf(c));
+                    queue.addAll(hierarchy.getDirectImplementorsOf(c));
+                } else {
+                    queue.addAll(hierarchy.getDirectSubclassesOf(c));
+                }
+            }
+        }
+        return subtypes;
+    }
+}
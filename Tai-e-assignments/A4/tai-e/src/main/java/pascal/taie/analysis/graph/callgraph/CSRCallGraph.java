@@ -0,0 +1,601 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.IndexedSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph stored in compressed sparse row (CSR) form.
+ * <p>
+ * Every reachable method and every call site is assigned a dense integer id
+ * when the graph is frozen, and all adjacency relations are kept in flat
+ * {@code int} arrays. The index-based accessors (e.g., {@link #getSuccCount(int)}
+ * and {@link #getSucc(int, int)}) never allocate; the {@link Set}-based
+ * accessors of {@link CallGraph} return views that are created once per node
+ * and then reused for all subsequent queries.
+ *
+ * @param <CallSite> type of call sites
+ * @param <Method>   type of methods
+ */
+public class CSRCallGraph<CallSite, Method> implements CallGraph<CallSite, Method> {
+
+    private final Map<Method, Integer> methodIds;
+
+    private final Object[] methods;
+
+    private final Object[] entries;
+
+    private final Map<CallSite, Integer> callSiteIds;
+
+    private final Object[] callSites;
+
+    /**
+     * Container (method id) of each call site.
+     */
+    private final int[] containers;
+
+    /**
+     * Call sites are numbered by their containers, so the call sites
+     * in method m are csOffsets[m] .. csOffsets[m + 1] - 1.
+     */
+    private final int[] csOffsets;
+
+    /**
+     * Out edges of each call site: edges[outOffsets[cs] .. outOffsets[cs + 1]).
+     */
+    private final int[] outOffsets;
+
+    private final Object[] edges;
+
+    private final int[] edgeCallees;
+
+    private final int[] edgeCallSites;
+
+    /**
+     * In edges of each method: inEdges[inOffsets[m] .. inOffsets[m + 1]).
+     */
+    private final int[] inOffsets;
+
+    private final int[] inEdges;
+
+    /**
+     * Distinct, sorted successor (callee) methods of each method.
+     */
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    /**
+     * Distinct, sorted predecessor (caller) methods of each method.
+     */
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    private final MethodEdge<?, ?>[] methodEdges;
+
+    // Lazily-created, per-node views; each is allocated at most once.
+
+    private final Set<?>[] succViews;
+
+    private final Set<?>[] predViews;
+
+    private final Set<?>[] calleeViews;
+
+    private final Set<?>[] callerViews;
+
+    private final Set<?>[] callSiteViews;
+
+    private final Set<?>[] outEdgeViews;
+
+    private final Set<?>[] inEdgeViews;
+
+    private final Set<Method> nodes;
+
+    /**
+     * Freezes the given call graph into CSR form. The given call graph
+     * should not be modified afterwards, as the changes are not reflected.
+     */
+    @SuppressWarnings("unchecked")
+    public CSRCallGraph(CallGraph<CallSite, Method> callGraph) {
+        // number methods
+        int nMethods = callGraph.getNumberOfMethods();
+        methodIds = Maps.newMap(nMethods);
+        methods = new Object[nMethods];
+        callGraph.reachableMethods().forEach(m -> {
+            int id = methodIds.size();
+            methodIds.put(m, id);
+            methods[id] = m;
+        });
+        entries = callGraph.entryMethods().toArray();
+        // number call sites, grouped by their containers
+        csOffsets = new int[nMethods + 1];
+        List<CallSite> allCallSites = new ArrayList<>();
+        for (int m = 0; m < nMethods; ++m) {
+            csOffsets[m] = allCallSites.size();
+            allCallSites.addAll(callGraph.getCallSitesIn((Method) methods[m]));
+        }
+        int nCallSites = allCallSites.size();
+        csOffsets[nMethods] = nCallSites;
+        callSites = allCallSites.toArray();
+        callSiteIds = Maps.newMap(nCallSites);
+        containers = new int[nCallSites];
+        for (int m = 0; m < nMethods; ++m) {
+            for (int cs = csOffsets[m]; cs < csOffsets[m + 1]; ++cs) {
+                callSiteIds.put((CallSite) callSites[cs], cs);
+                containers[cs] = m;
+            }
+        }
+        // call edges, grouped by their call sites
+        int nEdges = callGraph.getNumberOfEdges();
+        outOffsets = new int[nCallSites + 1];
+        edges = new Object[nEdges];
+        edgeCallees = new int[nEdges];
+        edgeCallSites = new int[nEdges];
+        methodEdges = new MethodEdge<?, ?>[nEdges];
+        int[] inDegrees = new int[nMethods];
+        int e = 0;
+        for (int cs = 0; cs < nCallSites; ++cs) {
+            outOffsets[cs] = e;
+            CallSite callSite = (CallSite) callSites[cs];
+            Method caller = (Method) methods[containers[cs]];
+            for (Iterator<Edge<CallSite, Method>> it =
+                 callGraph.edgesOutOf(callSite).iterator(); it.hasNext(); ) {
+                Edge<CallSite, Method> edge = it.next();
+                Integer callee = methodIds.get(edge.getCallee());
+                if (callee == null) {
+                    continue; // callee is not reachable, should not happen
+                }
+                edges[e] = edge;
+                edgeCallees[e] = callee;
+                edgeCallSites[e] = cs;
+                methodEdges[e] = new MethodEdge<>(caller, edge.getCallee(), callSite);
+                ++inDegrees[callee];
+                ++e;
+            }
+        }
+        outOffsets[nCallSites] = e;
+        // in edges, via counting sort on callees
+        inOffsets = prefixSum(inDegrees);
+        inEdges = new int[e];
+        int[] cursor = Arrays.copyOf(inOffsets, nMethods);
+        for (int i = 0; i < e; ++i) {
+            inEdges[cursor[edgeCallees[i]]++] = i;
+        }
+        // distinct successors and predecessors
+        succOffsets = new int[nMethods + 1];
+        predOffsets = new int[nMethods + 1];
+        int[][] succLists = new int[nMethods][];
+        int[][] predLists = new int[nMethods][];
+        int nSuccs = 0, nPreds = 0;
+        for (int m = 0; m < nMethods; ++m) {
+            int[] s = new int[outOffsets[csOffsets[m + 1]] - outOffsets[csOffsets[m]]];
+            System.arraycopy(edgeCallees, outOffsets[csOffsets[m]], s, 0, s.length);
+            succLists[m] = distinct(s);
+            nSuccs += succLists[m].length;
+            int[] p = new int[inOffsets[m + 1] - inOffsets[m]];
+            for (int i = 0; i < p.length; ++i) {
+                p[i] = containers[edgeCallSites[inEdges[inOffsets[m] + i]]];
+            }
+            predLists[m] = distinct(p);
+            nPreds += predLists[m].length;
+        }
+        succs = flatten(succLists, succOffsets, nSuccs);
+        preds = flatten(predLists, predOffsets, nPreds);
+        succViews = new Set<?>[nMethods];
+        predViews = new Set<?>[nMethods];
+        calleeViews = new Set<?>[nCallSites];
+        callerViews = new Set<?>[nMethods];
+        callSiteViews = new Set<?>[nMethods];
+        outEdgeViews = new Set<?>[nMethods];
+        inEdgeViews = new Set<?>[nMethods];
+        nodes = new IndexedSet<>(methods, null, 0, nMethods, this::indexOfMethod);
+    }
+
+    private static int[] prefixSum(int[] counts) {
+        int[] offsets = new int[counts.length + 1];
+        for (int i = 0; i < counts.length; ++i) {
+            offsets[i + 1] = offsets[i] + counts[i];
+        }
+        return offsets;
+    }
+
+    private static int[] distinct(int[] ids) {
+        if (ids.length <= 1) {
+            return ids;
+        }
+        Arrays.sort(ids);
+        int n = 1;
+        for (int i = 1; i < ids.length; ++i) {
+            if (ids[i] != ids[n - 1]) {
+                ids[n++] = ids[i];
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    private static int[] flatten(int[][] lists, int[] offsets, int size) {
+        int[] result = new int[size];
+        int i = 0;
+        for (int m = 0; m < lists.length; ++m) {
+            offsets[m] = i;
+            System.arraycopy(lists[m], 0, result, i, lists[m].length);
+            i += lists[m].length;
+        }
+        offsets[lists.length] = i;
+        return result;
+    }
+
+    // ---------- index-based, allocation-free accessors ----------
+
+    /**
+     * @return the id of the given method, or -1 if the method is not
+     * reachable in this call graph.
+     */
+    public int getIndex(Method method) {
+        Integer id = methodIds.get(method);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the method of the given id.
+     */
+    @SuppressWarnings("unchecked")
+    public Method getMethod(int index) {
+        return (Method) methods[index];
+    }
+
+    /**
+     * @return the id of the given call site, or -1 if the call site is not
+     * in this call graph.
+     */
+    public int getCallSiteIndex(CallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the call site of the given id.
+     */
+    @SuppressWarnings("unchecked")
+    public CallSite getCallSite(int index) {
+        return (CallSite) callSites[index];
+    }
+
+    /**
+     * @return the number of call sites in this call graph.
+     */
+    public int getNumberOfCallSites() {
+        return callSites.length;
+    }
+
+    /**
+     * @return the id of the method containing the given call site (id).
+     */
+    public int getContainerIndex(int callSite) {
+        return containers[callSite];
+    }
+
+    public int getSuccCount(int method) {
+        return succOffsets[method + 1] - succOffsets[method];
+    }
+
+    /**
+     * @return the id of the {@code i}-th distinct callee of the given method.
+     */
+    public int getSucc(int method, int i) {
+        return succs[succOffsets[method] + i];
+    }
+
+    public int getPredCount(int method) {
+        return predOffsets[method + 1] - predOffsets[method];
+    }
+
+    /**
+     * @return the id of the {@code i}-th distinct caller of the given method.
+     */
+    public int getPred(int method, int i) {
+        return preds[predOffsets[method] + i];
+    }
+
+    public int getCallSiteCount(int method) {
+        return csOffsets[method + 1] - csOffsets[method];
+    }
+
+    /**
+     * @return the id of the {@code i}-th call site in the given method.
+     */
+    public int getCallSiteIn(int method, int i) {
+        return csOffsets[method] + i;
+    }
+
+    public int getCalleeCount(int callSite) {
+        return outOffsets[callSite + 1] - outOffsets[callSite];
+    }
+
+    /**
+     * @return the id of the {@code i}-th callee of the given call site.
+     */
+    public int getCallee(int callSite, int i) {
+        return edgeCallees[outOffsets[callSite] + i];
+    }
+
+    public int getCallerCount(int method) {
+        return inOffsets[method + 1] - inOffsets[method];
+    }
+
+    /**
+     * @return the id of the {@code i}-th call site that calls the given method.
+     */
+    public int getCaller(int method, int i) {
+        return edgeCallSites[inEdges[inOffsets[method] + i]];
+    }
+
+    // ---------- implementation of CallGraph interface ----------
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<CallSite> getCallersOf(Method callee) {
+        int m = getIndex(callee);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = callerViews[m];
+        if (view == null) {
+            int[] ids = new int[getCallerCount(m)];
+            for (int i = 0; i < ids.length; ++i) {
+                ids[i] = getCaller(m, i);
+            }
+            view = callerViews[m] = new IndexedSet<>(callSites, ids, 0, ids.length,
+                    this::indexOfCallSite);
+        }
+        return (Set<CallSite>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getCalleesOf(CallSite callSite) {
+        int cs = getCallSiteIndex(callSite);
+        if (cs < 0) {
+            return Set.of();
+        }
+        Set<?> view = calleeViews[cs];
+        if (view == null) {
+            view = calleeViews[cs] = new IndexedSet<>(methods, edgeCallees,
+                    outOffsets[cs], outOffsets[cs + 1], this::indexOfMethod);
+        }
+        return (Set<Method>) view;
+    }
+
+    @Override
+    public Set<Method> getCalleesOfM(Method caller) {
+        return getSuccsOf(caller);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Method getContainerOf(CallSite callSite) {
+        int cs = getCallSiteIndex(callSite);
+        return cs < 0 ? null : (Method) methods[containers[cs]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<CallSite> getCallSitesIn(Method method) {
+        int m = getIndex(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = callSiteViews[m];
+        if (view == null) {
+            view = callSiteViews[m] = new IndexedSet<>(callSites, null,
+                    csOffsets[m], csOffsets[m + 1], this::indexOfCallSite);
+        }
+        return (Set<CallSite>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        int cs = getCallSiteIndex(callSite);
+        if (cs < 0) {
+            return Stream.of();
+        }
+        return (Stream<Edge<CallSite, Method>>) (Stream<?>) Arrays.stream(
+                edges, outOffsets[cs], outOffsets[cs + 1]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        int m = getIndex(method);
+        if (m < 0) {
+            return Stream.of();
+        }
+        return Arrays.stream(inEdges, inOffsets[m], inOffsets[m + 1])
+                .mapToObj(e -> (Edge<CallSite, Method>) edges[e]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Edge<CallSite, Method>> edges() {
+        return (Stream<Edge<CallSite, Method>>) (Stream<?>) Arrays.stream(
+                edges, 0, getNumberOfEdges());
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return outOffsets[callSites.length];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Method> entryMethods() {
+        return (Stream<Method>) Arrays.stream(entries);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Method> reachableMethods() {
+        return (Stream<Method>) Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(Method method) {
+        return methodIds.containsKey(method);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getResult(Stmt stmt) {
+        // call sites of context-insensitive call graphs are statements
+        return getCalleesOf((CallSite) stmt);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(Method node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(Method source, Method target) {
+        int s = getIndex(source), t = getIndex(target);
+        return s >= 0 && t >= 0 &&
+                Arrays.binarySearch(succs, succOffsets[s], succOffsets[s + 1], t) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<MethodEdge<CallSite, Method>> getInEdgesOf(Method method) {
+        int m = getIndex(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = inEdgeViews[m];
+        if (view == null) {
+            view = inEdgeViews[m] = new IndexedSet<>(methodEdges, inEdges,
+                    inOffsets[m], inOffsets[m + 1]);
+        }
+        return (Set<MethodEdge<CallSite, Method>>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<MethodEdge<CallSite, Method>> getOutEdgesOf(Method method) {
+        int m = getIndex(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = outEdgeViews[m];
+        if (view == null) {
+            // out edges of a method are contiguous as call sites are
+            // grouped by their containers
+            view = outEdgeViews[m] = new IndexedSet<>(methodEdges, null,
+                    outOffsets[csOffsets[m]], outOffsets[csOffsets[m + 1]]);
+        }
+        return (Set<MethodEdge<CallSite, Method>>) view;
+    }
+
+    @Override
+    public int getInDegreeOf(Method node) {
+        int m = getIndex(node);
+        return m < 0 ? 0 : getCallerCount(m);
+    }
+
+    @Override
+    public int getOutDegreeOf(Method node) {
+        int m = getIndex(node);
+        return m < 0 ? 0 : outOffsets[csOffsets[m + 1]] - outOffsets[csOffsets[m]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getPredsOf(Method node) {
+        int m = getIndex(node);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = predViews[m];
+        if (view == null) {
+            view = predViews[m] = new IndexedSet<>(methods, preds,
+                    predOffsets[m], predOffsets[m + 1], this::indexOfMethod);
+        }
+        return (Set<Method>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getSuccsOf(Method node) {
+        int m = getIndex(node);
+        if (m < 0) {
+            return Set.of();
+        }
+        Set<?> view = succViews[m];
+        if (view == null) {
+            view = succViews[m] = new IndexedSet<>(methods, succs,
+                    succOffsets[m], succOffsets[m + 1], this::indexOfMethod);
+        }
+        return (Set<Method>) view;
+    }
+
+    @Override
+    public Set<Method> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return methods.length;
+    }
+
+    private int indexOfMethod(Object o) {
+        return methodIds.getOrDefault(o, -1);
+    }
+
+    private int indexOfCallSite(Object o) {
+        return callSiteIds.getOrDefault(o, -1);
+    }
+}
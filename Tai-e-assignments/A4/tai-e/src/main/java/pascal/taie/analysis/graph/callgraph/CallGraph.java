@@ -107,4 +107,13 @@ public interface CallGraph<CallSite, Method> extends Graph<Method>, StmtResult<S
      * @return true if this call graph contains the given method, otherwise false.
      */
     boolean contains(Method method);
+
+    /**
+     * Computes the condensation of this call graph, i.e., the DAG of its
+     * strongly connected components, which can be used to schedule
+     * bottom-up or top-down (modular) analyses.
+     */
+    default CallGraphCondensation<Method> condense() {
+        return new CallGraphCondensation<>(this);
+    }
 }
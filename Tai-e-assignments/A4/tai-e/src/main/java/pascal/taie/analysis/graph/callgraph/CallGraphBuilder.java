@@ -24,16 +24,22 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.ClassHierarchyImpl;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class CallGraphBuilder extends ProgramAnalysis {
 
@@ -46,6 +52,12 @@ public class CallGraphBuilder extends ProgramAnalysis {
      */
     private static final String SEP = " -> ";
 
+    /**
+     * The latest dumping of call graph edges, which may run in background.
+     */
+    private static volatile CompletableFuture<Void> edgeDump =
+            CompletableFuture.completedFuture(null);
+
     private final String algorithm;
 
     public CallGraphBuilder(AnalysisConfig config) {
@@ -55,19 +67,62 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
-        CGBuilder<Invoke, JMethod> builder;
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        boolean pruneDeadCode = Boolean.TRUE.equals(
+                getOptions().get("prune-dead-code"));
+        CHABuilder builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = new CHABuilder(hierarchy, pruneDeadCode);
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
-        ClassHierarchyImpl.setCheckCHA(true);
-        CallGraph<Invoke, JMethod> callGraph = builder.build();
-        ClassHierarchyImpl.setCheckCHA(false);
+        String cache = getOptions().getString("cache");
+        // call graphs built with and without dead code pruning differ
+        String cacheKey = pruneDeadCode ? algorithm + "+prune-dead-code" : algorithm;
+        long classPathHash = 0;
+        CallGraph<Invoke, JMethod> callGraph = null;
+        if (cache != null) {
+            classPathHash = CallGraphSerializer.computeClassPathHash(
+                    World.get().getOptions());
+            callGraph = CallGraphSerializer.read(
+                    new File(cache), classPathHash, cacheKey);
+        }
+        if (callGraph == null) {
+            ClassHierarchyImpl.setCheckCHA(true);
+            callGraph = builder.build();
+            ClassHierarchyImpl.setCheckCHA(false);
+            if (cache != null) {
+                CallGraphSerializer.write(
+                        callGraph, new File(cache), classPathHash, cacheKey);
+            }
+        }
+        if (Boolean.TRUE.equals(getOptions().get("incremental"))) {
+            // keep the call graph mutable, and update it when classes
+            // are added to the class hierarchy later
+            if (hierarchy instanceof ClassHierarchyImpl impl) {
+                impl.addListener(new CHAUpdater(
+                        hierarchy, builder, (DefaultCallGraph) callGraph));
+            }
+        } else {
+            // freeze the call graph into a compact form, as it is not
+            // modified after construction but queried intensively
+            callGraph = new CSRCallGraph<>(callGraph);
+        }
         takeAction(callGraph);
+        String profile = getOptions().getString("profile");
+        if (profile != null) {
+            new CallGraphProfiler(getIntOption("megamorphic-threshold", 5),
+                    getIntOption("profile-top", 20))
+                    .profile(callGraph, new File(profile));
+        }
         return callGraph;
     }
 
+    private int getIntOption(String key, int defaultValue) {
+        Object value = getOptions().get(key);
+        return value == null ? defaultValue : (Integer) value;
+    }
+
     private void takeAction(CallGraph<Invoke, JMethod> callGraph) {
         String action = getOptions().getString("action");
         if (action == null) {
@@ -77,6 +132,33 @@ public class CallGraphBuilder extends ProgramAnalysis {
             logCallGraph(callGraph);
             String file = getOptions().getString("file");
             CallGraphs.dumpCallGraph(callGraph, file);
+        } else if (action.equals("dump-edges")) {
+            String file = getOptions().getString("file");
+            boolean async = Boolean.TRUE.equals(getOptions().get("async"));
+            if (async && !(callGraph instanceof CSRCallGraph)) {
+                // the call graph may still be updated (in incremental mode)
+                // while being dumped in background, so dump a frozen copy
+                callGraph = new CSRCallGraph<>(callGraph);
+            }
+            edgeDump = CallGraphs.dumpEdges(callGraph, file,
+                    getIntOption("shards", 1),
+                    Boolean.TRUE.equals(getOptions().get("sorted")), async);
+        }
+    }
+
+    /**
+     * Waits until the call graph edges dumped in background
+     * (see option "async") are written.
+     *
+     * @throws AnalysisException if the dumping failed
+     */
+    public static void awaitEdgeDump() {
+        try {
+            edgeDump.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof AnalysisException ae ? ae
+                    : new AnalysisException("Failed to dump call graph edges",
+                    e.getCause());
         }
     }
 
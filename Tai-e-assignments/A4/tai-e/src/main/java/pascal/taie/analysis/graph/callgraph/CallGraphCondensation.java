@@ -0,0 +1,274 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.GraphKernels;
+import pascal.taie.util.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Condensation of a call graph, i.e., the DAG of its strongly connected
+ * components (SCCs), each of which is a set of mutually recursive methods.
+ * <p>
+ * The SCCs are computed by {@link GraphKernels#scc(IndexedGraph)}, which
+ * does not overflow the stack on deep call graphs. The components are
+ * numbered in bottom-up order, i.e., every component has a larger index than
+ * the components it calls. Besides, this class provides schedulers which
+ * process the components in bottom-up (callees first) or top-down
+ * (callers first) order in parallel, where a component is handed out as
+ * soon as all components it depends on have been processed.
+ *
+ * @param <Method> type of methods
+ */
+public class CallGraphCondensation<Method> {
+
+    private final List<List<Method>> components;
+
+    private final Map<Method, Integer> componentOf;
+
+    /**
+     * Successors (callee components) of each component, excluding itself.
+     */
+    private final int[][] succs;
+
+    /**
+     * Predecessors (caller components) of each component, excluding itself.
+     */
+    private final int[][] preds;
+
+    /**
+     * Whether each component is recursive, i.e., it contains more than
+     * one method, or its single method calls itself.
+     */
+    private final boolean[] recursive;
+
+    public CallGraphCondensation(CallGraph<?, Method> callGraph) {
+        IndexedGraph<Method> graph = IndexedGraph.of(callGraph);
+        int n = graph.size();
+        int[] comp = GraphKernels.scc(graph);
+        // collect components and the edges between them
+        int nComps = 0;
+        for (int c : comp) {
+            nComps = Math.max(nComps, c + 1);
+        }
+        components = new ArrayList<>(nComps);
+        for (int c = 0; c < nComps; ++c) {
+            components.add(new ArrayList<>());
+        }
+        componentOf = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            components.get(comp[i]).add(graph.getNode(i));
+            componentOf.put(graph.getNode(i), comp[i]);
+        }
+        recursive = new boolean[nComps];
+        List<List<Integer>> succLists = new ArrayList<>(nComps);
+        List<List<Integer>> predLists = new ArrayList<>(nComps);
+        for (int c = 0; c < nComps; ++c) {
+            succLists.add(new ArrayList<>());
+            predLists.add(new ArrayList<>());
+            recursive[c] = components.get(c).size() > 1;
+        }
+        for (int i = 0; i < n; ++i) {
+            for (int k = 0; k < graph.getSuccCount(i); ++k) {
+                int succ = graph.getSucc(i, k);
+                int from = comp[i], to = comp[succ];
+                if (from == to) {
+                    recursive[from] |= i == succ;
+                } else {
+                    succLists.get(from).add(to);
+                    predLists.get(to).add(from);
+                }
+            }
+        }
+        succs = toDistinctArrays(succLists);
+        preds = toDistinctArrays(predLists);
+    }
+
+    private static int[][] toDistinctArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < arrays.length; ++i) {
+            arrays[i] = lists.get(i)
+                    .stream()
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+        return arrays;
+    }
+
+    /**
+     * @return the number of components.
+     */
+    public int getNumberOfComponents() {
+        return components.size();
+    }
+
+    /**
+     * @return all components in bottom-up order, i.e., each component
+     * appears after all components it calls.
+     */
+    public List<List<Method>> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @return the methods in the i-th component.
+     */
+    public List<Method> getComponent(int i) {
+        return Collections.unmodifiableList(components.get(i));
+    }
+
+    /**
+     * @return index of the component containing the given method,
+     * or -1 if the method is not in the call graph.
+     */
+    public int getComponentOf(Method method) {
+        return componentOf.getOrDefault(method, -1);
+    }
+
+    /**
+     * @return indexes of the components called by the i-th component.
+     */
+    public int[] getSuccsOf(int i) {
+        return succs[i].clone();
+    }
+
+    /**
+     * @return successors of all components, without copying.
+     */
+    int[][] getSuccs() {
+        return succs;
+    }
+
+    /**
+     * @return indexes of the components that call the i-th component.
+     */
+    public int[] getPredsOf(int i) {
+        return preds[i].clone();
+    }
+
+    /**
+     * @return true if the i-th component is recursive, i.e., it contains
+     * more than one method, or its single method calls itself.
+     */
+    public boolean isRecursive(int i) {
+        return recursive[i];
+    }
+
+    /**
+     * Processes the components in bottom-up order, i.e., a component
+     * is processed after all components it calls have been processed.
+     *
+     * @param parallelism number of worker threads
+     * @param action      the action to process each component
+     */
+    public void forEachBottomUp(int parallelism, Consumer<List<Method>> action) {
+        schedule(parallelism, action, true);
+    }
+
+    /**
+     * Processes the components in top-down order, i.e., a component
+     * is processed after all components calling it have been processed.
+     *
+     * @param parallelism number of worker threads
+     * @param action      the action to process each component
+     */
+    public void forEachTopDown(int parallelism, Consumer<List<Method>> action) {
+        schedule(parallelism, action, false);
+    }
+
+    /**
+     * Processes each component after all its dependencies, i.e., its
+     * callees (if bottom-up) or callers (if top-down).
+     */
+    private void schedule(int parallelism, Consumer<List<Method>> action,
+                          boolean bottomUp) {
+        int n = components.size();
+        if (parallelism <= 1) {
+            // sequential processing in (reverse) index order
+            // already respects the dependencies
+            for (int i = 0; i < n; ++i) {
+                action.accept(getComponent(bottomUp ? i : n - 1 - i));
+            }
+            return;
+        }
+        int[][] deps = bottomUp ? succs : preds;
+        int[][] dependents = bottomUp ? preds : succs;
+        AtomicIntegerArray pending = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; ++i) {
+            pending.set(i, deps[i].length);
+        }
+        CountDownLatch done = new CountDownLatch(n);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            IntConsumer submit = new IntConsumer() {
+                @Override
+                public void accept(int i) {
+                    executor.execute(() -> {
+                        try {
+                            if (failure.get() == null) {
+                                action.accept(getComponent(i));
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                        for (int dependent : dependents[i]) {
+                            if (pending.decrementAndGet(dependent) == 0) {
+                                this.accept(dependent);
+                            }
+                        }
+                        done.countDown();
+                    });
+                }
+            };
+            for (int i = 0; i < n; ++i) {
+                if (deps[i].length == 0) {
+                    submit.accept(i);
+                }
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while processing SCCs", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AnalysisException("Failed to process SCCs", failure.get());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Profiles the fan-out of call sites in a call graph, which helps to find
+ * out the call sites and methods that blow up the call graph.
+ * <p>
+ * The profile is emitted as a JSON object with the following fields:
+ * <ul>
+ *     <li>summary: numbers of methods, call sites and edges</li>
+ *     <li>fanOutHistogram: number of call sites for each number of targets</li>
+ *     <li>megamorphicCallSites: call sites whose numbers of targets are
+ *     not less than the threshold</li>
+ *     <li>callSites: all call sites with their numbers of targets and
+ *     shares of all edges, in descending order of the numbers</li>
+ *     <li>topCallers/topCallees: methods which call, or are called by,
+ *     the most methods</li>
+ * </ul>
+ */
+class CallGraphProfiler {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphProfiler.class);
+
+    private final int megamorphicThreshold;
+
+    private final int topMethods;
+
+    /**
+     * @param megamorphicThreshold minimum number of targets of megamorphic
+     *                             call sites
+     * @param topMethods           number of methods listed in top callers
+     *                             and callees
+     */
+    CallGraphProfiler(int megamorphicThreshold, int topMethods) {
+        this.megamorphicThreshold = megamorphicThreshold;
+        this.topMethods = topMethods;
+    }
+
+    /**
+     * Profiles the given call graph and writes the profile to output file.
+     */
+    void profile(CallGraph<Invoke, JMethod> callGraph, File output) {
+        logger.info("Dumping call graph profile to {} ...", output);
+        Map<String, Object> profile = new LinkedHashMap<>();
+        List<Map<String, Object>> callSites = new ArrayList<>();
+        Map<Integer, Integer> histogram = new TreeMap<>();
+        int nEdges = callGraph.getNumberOfEdges();
+        callGraph.reachableMethods()
+                .sorted(Comparator.comparing(JMethod::toString))
+                .forEach(m -> callGraph.callSitesIn(m)
+                        .sorted(Comparator.comparing(Invoke::getIndex))
+                        .forEach(cs -> {
+                            int targets = callGraph.getCalleesOf(cs).size();
+                            histogram.merge(targets, 1, Integer::sum);
+                            Map<String, Object> site = new LinkedHashMap<>();
+                            site.put("callSite", CallGraphs.toString(cs));
+                            site.put("kind", CallGraphs.getCallKind(cs).toString());
+                            site.put("targets", targets);
+                            site.put("edgeShare", nEdges == 0 ? 0.0 : (double) targets / nEdges);
+                            callSites.add(site);
+                        }));
+        callSites.sort(Comparator.comparingInt(
+                (Map<String, Object> site) -> (int) site.get("targets")).reversed());
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("methods", callGraph.getNumberOfMethods());
+        summary.put("callSites", callSites.size());
+        summary.put("edges", nEdges);
+        profile.put("summary", summary);
+        profile.put("fanOutHistogram", histogram);
+        profile.put("megamorphicThreshold", megamorphicThreshold);
+        profile.put("megamorphicCallSites", callSites.stream()
+                .filter(site -> (int) site.get("targets") >= megamorphicThreshold)
+                .toList());
+        profile.put("callSites", callSites);
+        profile.put("topCallers", getTopMethods(callGraph,
+                m -> callGraph.getSuccsOf(m).size(), "callees"));
+        profile.put("topCallees", getTopMethods(callGraph,
+                m -> callGraph.getPredsOf(m).size(), "callers"));
+        try {
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(output, profile);
+        } catch (IOException e) {
+            logger.warn("Failed to dump call graph profile to {}, caused by {}",
+                    output, e);
+        }
+    }
+
+    private List<Map<String, Object>> getTopMethods(
+            CallGraph<Invoke, JMethod> callGraph,
+            ToIntFunction<JMethod> counter, String key) {
+        return callGraph.reachableMethods()
+                .sorted(Comparator.comparingInt(counter).reversed()
+                        .thenComparing(JMethod::toString))
+                .limit(topMethods)
+                .map(m -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("method", m.toString());
+                    entry.put(key, counter.applyAsInt(m));
+                    return entry;
+                })
+                .toList();
+    }
+}
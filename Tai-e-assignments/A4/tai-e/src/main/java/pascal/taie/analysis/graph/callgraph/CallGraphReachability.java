@@ -0,0 +1,237 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Reachability index of a call graph, which answers whether a method
+ * can transitively call another method.
+ * <p>
+ * The index is built on the condensation of the call graph, and labels
+ * each component with several intervals computed by randomized post-order
+ * traversals (GRAIL). If component u reaches v, then every interval of v
+ * is contained in the corresponding interval of u, thus most unreachable
+ * pairs are refuted in constant time. The remaining queries are answered
+ * by a depth-first search which prunes the components whose intervals or
+ * topological indexes rule out reaching the target. The labelings are
+ * computed in parallel.
+ *
+ * @param <Method> type of methods
+ */
+public class CallGraphReachability<Method> {
+
+    /**
+     * Default number of interval labelings.
+     */
+    private static final int DEFAULT_LABELINGS = 3;
+
+    private final CallGraphCondensation<Method> condensation;
+
+    private final int[][] succs;
+
+    /**
+     * lows[k][c] and highs[k][c] are the bounds of the interval
+     * of component c in the k-th labeling.
+     */
+    private final int[][] lows;
+
+    private final int[][] highs;
+
+    /**
+     * Buffers of the depth-first search, which are reused by the queries
+     * of each thread.
+     */
+    private final ThreadLocal<Search> searches;
+
+    public CallGraphReachability(CallGraph<?, Method> callGraph) {
+        this(callGraph.condense(), DEFAULT_LABELINGS);
+    }
+
+    /**
+     * @param labelings number of interval labelings. More labelings
+     *                  refute more queries at the cost of more memory.
+     */
+    public CallGraphReachability(CallGraphCondensation<Method> condensation,
+                                 int labelings) {
+        this.condensation = condensation;
+        this.succs = condensation.getSuccs();
+        int n = succs.length;
+        lows = new int[labelings][];
+        highs = new int[labelings][];
+        IntStream.range(0, labelings).parallel().forEach(k -> {
+            lows[k] = new int[n];
+            highs[k] = new int[n];
+            label(new Random(k), lows[k], highs[k]);
+        });
+        searches = ThreadLocal.withInitial(() -> new Search(n));
+    }
+
+    /**
+     * Assigns each component an interval [low, high], where high is its
+     * rank in a post-order traversal which visits successors in random
+     * order, and low is the minimum rank of the components it reaches.
+     */
+    private void label(Random random, int[] low, int[] high) {
+        int n = succs.length;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] next = new int[n]; // number of successors visited
+        int[] start = new int[n]; // random offset of the successors to visit
+        int rank = 0;
+        // roots are visited in reverse index order, i.e., callers first
+        for (int root = n - 1; root >= 0; --root) {
+            if (visited[root]) {
+                continue;
+            }
+            int sp = 0;
+            stack[sp++] = root;
+            visited[root] = true;
+            start[root] = randomOffset(random, root);
+            low[root] = Integer.MAX_VALUE;
+            while (sp > 0) {
+                int c = stack[sp - 1];
+                int[] cSuccs = succs[c];
+                if (next[c] < cSuccs.length) {
+                    int succ = cSuccs[(start[c] + next[c]++) % cSuccs.length];
+                    if (!visited[succ]) {
+                        visited[succ] = true;
+                        start[succ] = randomOffset(random, succ);
+                        low[succ] = Integer.MAX_VALUE;
+                        stack[sp++] = succ;
+                    } else {
+                        low[c] = Math.min(low[c], low[succ]);
+                    }
+                } else {
+                    --sp;
+                    high[c] = rank++;
+                    low[c] = Math.min(low[c], high[c]);
+                    if (sp > 0) {
+                        int parent = stack[sp - 1];
+                        low[parent] = Math.min(low[parent], low[c]);
+                    }
+                }
+            }
+        }
+    }
+
+    private int randomOffset(Random random, int c) {
+        return succs[c].length == 0 ? 0 : random.nextInt(succs[c].length);
+    }
+
+    /**
+     * @return true if method {@code from} can transitively call method
+     * {@code to}, or they are the same method, otherwise false.
+     */
+    public boolean canReach(Method from, Method to) {
+        if (from.equals(to)) {
+            return condensation.getComponentOf(from) != -1;
+        }
+        int src = condensation.getComponentOf(from);
+        int dst = condensation.getComponentOf(to);
+        if (src == -1 || dst == -1) {
+            return false;
+        }
+        return src == dst || canReach(src, dst);
+    }
+
+    /**
+     * @return true if component src can reach component dst, otherwise false.
+     */
+    public boolean canReach(int src, int dst) {
+        if (src == dst) {
+            return true;
+        }
+        if (!mayReach(src, dst)) {
+            return false;
+        }
+        Search search = searches.get();
+        int mark = search.nextMark();
+        int[] marks = search.marks;
+        int[] stack = search.stack;
+        int sp = 0;
+        stack[sp++] = src;
+        marks[src] = mark;
+        while (sp > 0) {
+            int c = stack[--sp];
+            for (int succ : succs[c]) {
+                if (succ == dst) {
+                    return true;
+                }
+                if (marks[succ] != mark && mayReach(succ, dst)) {
+                    marks[succ] = mark;
+                    stack[sp++] = succ;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false if component src certainly cannot reach component dst.
+     */
+    private boolean mayReach(int src, int dst) {
+        // components are indexed in bottom-up order, so a component
+        // can only reach the components with smaller indexes
+        if (src < dst) {
+            return false;
+        }
+        for (int k = 0; k < lows.length; ++k) {
+            if (lows[k][dst] < lows[k][src] || highs[k][dst] > highs[k][src]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stack and visited marks of the depth-first search. A component is
+     * visited by the current search if its mark equals the current mark,
+     * so the marks need not be cleared between searches.
+     */
+    private static class Search {
+
+        /**
+         * Each component is pushed at most once per search.
+         */
+        private final int[] stack;
+
+        private final int[] marks;
+
+        private int mark = 0;
+
+        private Search(int size) {
+            stack = new int[size];
+            marks = new int[size];
+        }
+
+        private int nextMark() {
+            if (++mark == 0) { // wrapped around, clear stale marks
+                Arrays.fill(marks, 0);
+                mark = 1;
+            }
+            return mark;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes call graphs to, and reads call graphs from, a compact binary format,
+ * so that a call graph built by one run can be reused by later runs.
+ * <p>
+ * Methods are identified by their signatures and call sites by their
+ * containers and indexes in IR, so a stored call graph stays valid as long
+ * as the analyzed program does not change. The file also records a hash of
+ * the class path; a file whose hash differs from the current one is stale
+ * and is rejected on loading.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * long   class path hash
+ * string algorithm
+ * int    #methods, followed by the signature (string) of each method
+ * int    #entries, followed by the id of each entry method
+ * int    #edges, followed by (caller id, call site index, callee id, kind)
+ *        of each edge as (int, int, int, byte)
+ * </pre>
+ * where each string is stored as its length in bytes (int) followed by
+ * its UTF-8 bytes.
+ */
+public final class CallGraphSerializer {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphSerializer.class);
+
+    private static final int MAGIC = 0x54434746; // "TCGF"
+
+    private static final int VERSION = 1;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private CallGraphSerializer() {
+    }
+
+    /**
+     * Writes call graph to the given file.
+     *
+     * @param classPathHash hash of the class path of the analyzed program,
+     *                      see {@link #computeClassPathHash(Options)}.
+     * @param algorithm     the algorithm that built the call graph
+     */
+    public static void write(CallGraph<Invoke, JMethod> callGraph, File file,
+                             long classPathHash, String algorithm) {
+        logger.info("Writing call graph to {} ...", file);
+        Map<JMethod, Integer> ids = Maps.newMap(callGraph.getNumberOfMethods());
+        callGraph.reachableMethods().forEach(m -> ids.put(m, ids.size()));
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(classPathHash);
+            writeString(out, algorithm);
+            out.writeInt(ids.size());
+            for (Iterator<JMethod> it = callGraph.reachableMethods().iterator();
+                 it.hasNext(); ) {
+                writeString(out, it.next().getSignature());
+            }
+            List<JMethod> entries = callGraph.entryMethods().toList();
+            out.writeInt(entries.size());
+            for (JMethod entry : entries) {
+                out.writeInt(ids.get(entry));
+            }
+            out.writeInt(callGraph.getNumberOfEdges());
+            for (Iterator<Edge<Invoke, JMethod>> it = callGraph.edges().iterator();
+                 it.hasNext(); ) {
+                Edge<Invoke, JMethod> edge = it.next();
+                Invoke callSite = edge.getCallSite();
+                out.writeInt(ids.get(callSite.getContainer()));
+                out.writeInt(callSite.getIndex());
+                out.writeInt(ids.get(edge.getCallee()));
+                out.writeByte(edge.getKind().ordinal());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write call graph to {}, caused by {}", file, e);
+        }
+    }
+
+    /**
+     * Reads call graph from the given file by memory-mapping it.
+     *
+     * @return the call graph stored in the file, or {@code null} if the file
+     * does not exist, is malformed, or is stale, i.e., it was written for
+     * a different class path or by a different algorithm.
+     */
+    public static @Nullable CallGraph<Invoke, JMethod> read(
+            File file, long classPathHash, String algorithm) {
+        if (!file.isFile()) {
+            return null;
+        }
+        logger.info("Reading call graph from {} ...", file);
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                logger.warn("{} is not a call graph file of current version", file);
+                return null;
+            }
+            if (buf.getLong() != classPathHash || !readString(buf).equals(algorithm)) {
+                logger.info("{} is stale, ignore it", file);
+                return null;
+            }
+            return readCallGraph(buf, file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read call graph from {}, caused by {}", file, e);
+            return null;
+        }
+    }
+
+    private static @Nullable CallGraph<Invoke, JMethod> readCallGraph(
+            ByteBuffer buf, File file) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod[] methods = new JMethod[buf.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            String signature = readString(buf);
+            methods[i] = resolveMethod(hierarchy, signature);
+            if (methods[i] == null) {
+                logger.info("{} is stale, cannot find method {}", file, signature);
+                return null;
+            }
+        }
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        int nEntries = buf.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(methods[buf.getInt()]);
+        }
+        for (JMethod method : methods) {
+            callGraph.addReachableMethod(method);
+        }
+        int nEdges = buf.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            JMethod caller = methods[buf.getInt()];
+            int index = buf.getInt();
+            JMethod callee = methods[buf.getInt()];
+            CallKind kind = KINDS[buf.get()];
+            List<Stmt> stmts = caller.getIR().getStmts();
+            if (index >= stmts.size() ||
+                    !(stmts.get(index) instanceof Invoke callSite)) {
+                logger.info("{} is stale, cannot find call site {} in {}",
+                        file, index, caller);
+                return null;
+            }
+            callGraph.addEdge(new Edge<>(kind, callSite, callee));
+        }
+        return callGraph;
+    }
+
+    private static @Nullable JMethod resolveMethod(
+            ClassHierarchy hierarchy, String signature) {
+        JClass jclass = hierarchy.getClass(StringReps.getClassNameOf(signature));
+        return jclass == null ? null : jclass.getDeclaredMethod(
+                Subsignature.get(StringReps.getSubsignatureOf(signature)));
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes a hash of the class path (and other options that affect the
+     * analyzed program) given by the options. The hash covers the path,
+     * size and last modified time of every file on the class path.
+     */
+    public static long computeClassPathHash(Options options) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        }
+        update(digest, String.valueOf(options.getMainClass()));
+        update(digest, Integer.toString(options.getJavaVersion()));
+        update(digest, Boolean.toString(options.isPrependJVM()));
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                Path root = Path.of(entry);
+                update(digest, entry);
+                if (!Files.exists(root)) {
+                    continue;
+                }
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(Files::isRegularFile)
+                            .sorted()
+                            .forEach(p -> {
+                                File f = p.toFile();
+                                update(digest, root.relativize(p).toString());
+                                update(digest, Long.toString(f.length()));
+                                update(digest, Long.toString(f.lastModified()));
+                            });
+                } catch (IOException e) {
+                    logger.warn("Failed to scan class path entry {}", entry);
+                }
+            }
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -40,7 +40,9 @@ import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -96,6 +98,33 @@ public final class CallGraphs {
                 .dump(callGraph, output);
     }
 
+    /**
+     * Dumps call graph edges to gzip-compressed edge list file(s),
+     * which scales to large call graphs. See {@link EdgeListDumper}.
+     *
+     * @param shards number of output files
+     * @param sorted whether the edges in each output file are sorted
+     * @param async  whether to dump the edges in a background thread
+     * @return a future which completes when the edges are dumped.
+     */
+    static CompletableFuture<Void> dumpEdges(CallGraph<Invoke, JMethod> callGraph, String output,
+                          int shards, boolean sorted, boolean async) {
+        if (output == null) {
+            output = new File(Configs.getOutputDir(),
+                    callGraph.entryMethods()
+                            .map(m -> m.getDeclaringClass() + "." + m.getName())
+                            .collect(Collectors.joining("-")) + "-cg-edges.txt.gz")
+                    .toString();
+        }
+        EdgeListDumper dumper = new EdgeListDumper(Path.of(output), shards, sorted);
+        if (async) {
+            return dumper.dumpAsync(callGraph);
+        } else {
+            dumper.dump(callGraph);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     public static String toString(Invoke invoke) {
         return invoke.getContainer() + IRPrinter.toString(invoke);
     }
@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.CSRCFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filters out the call sites in statically dead code, i.e., the code
+ * in branches which are never taken as their conditions are proved to
+ * be constants by (intra-procedural) constant propagation.
+ * <p>
+ * Exceptional control flow is not modeled, thus for soundness, no call
+ * site is filtered out in a method which has live try blocks, as its
+ * exception handlers may be reached with arbitrary values.
+ */
+class DeadCodeFilter {
+
+    private final CFGBuilder cfgBuilder = new CFGBuilder(
+            new AnalysisConfig(CFGBuilder.ID,
+                    "exception", "none", "dump", false));
+
+    private final ConstantPropagation cp = new ConstantPropagation(
+            new AnalysisConfig(ConstantPropagation.ID));
+
+    /**
+     * Cache of the live call sites of each analyzed method.
+     */
+    private final Map<JMethod, Set<Invoke>> liveCallSites = Maps.newMap();
+
+    /**
+     * @return true if the given call site is not in statically dead code.
+     */
+    boolean isLive(Invoke callSite) {
+        return liveCallSites.computeIfAbsent(callSite.getContainer(),
+                this::computeLiveCallSites).contains(callSite);
+    }
+
+    private Set<Invoke> computeLiveCallSites(JMethod method) {
+        IR ir = method.getIR();
+        CSRCFG cfg = CSRCFG.freeze(cfgBuilder.analyze(ir));
+        DataflowResult<Stmt, CPFact> constants = Solver.makeSolver(cp).solve(cfg);
+        Set<Invoke> live = Sets.newHybridSet();
+        boolean[] visited = new boolean[cfg.size()];
+        int[] queue = new int[cfg.size()];
+        int head = 0, tail = 0;
+        visited[cfg.getEntryIndex()] = true;
+        queue[tail++] = cfg.getEntryIndex();
+        while (head < tail) {
+            int i = queue[head++];
+            Stmt stmt = cfg.getNode(i);
+            if (stmt instanceof Invoke invoke) {
+                live.add(invoke);
+            }
+            int target = -1; // index of the only taken successor, if known
+            if (stmt instanceof If ifStmt) {
+                Value cond = ConstantPropagation.evaluate(
+                        ifStmt.getCondition(), constants.getInFact(stmt));
+                if (cond.isConstant()) {
+                    Edge.Kind taken = cond.getConstant() == 0 ?
+                            Edge.Kind.IF_FALSE : Edge.Kind.IF_TRUE;
+                    for (int k = 0; k < cfg.getOutEdgeCount(i); ++k) {
+                        if (cfg.getOutEdgeKind(i, k) == taken) {
+                            target = cfg.getOutEdgeTarget(i, k);
+                        }
+                    }
+                }
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                Value val = ConstantPropagation.evaluate(
+                        switchStmt.getVar(), constants.getInFact(stmt));
+                if (val.isConstant()) {
+                    Stmt caseTarget = switchStmt.getDefaultTarget();
+                    for (Pair<Integer, Stmt> pair : switchStmt.getCaseTargets()) {
+                        if (pair.first() == val.getConstant()) {
+                            caseTarget = pair.second();
+                            break;
+                        }
+                    }
+                    target = caseTarget.getIndex();
+                }
+            }
+            if (target != -1) {
+                if (!visited[target]) {
+                    visited[target] = true;
+                    queue[tail++] = target;
+                }
+                continue;
+            }
+            for (int k = 0; k < cfg.getSuccCount(i); ++k) {
+                int succ = cfg.getSucc(i, k);
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    queue[tail++] = succ;
+                }
+            }
+        }
+        if (hasLiveTryBlock(ir, visited)) {
+            // exception handlers may be reached with unknown values
+            ir.forEach(s -> {
+                if (s instanceof Invoke invoke) {
+                    live.add(invoke);
+                }
+            });
+        }
+        return live;
+    }
+
+    private static boolean hasLiveTryBlock(IR ir, boolean[] liveStmts) {
+        for (ExceptionEntry entry : ir.getExceptionEntries()) {
+            for (int i = entry.start().getIndex(); i < entry.end().getIndex(); ++i) {
+                if (liveStmts[i]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
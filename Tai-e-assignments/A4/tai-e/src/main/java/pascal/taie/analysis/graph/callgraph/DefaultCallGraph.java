@@ -26,6 +26,8 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -33,6 +35,8 @@ import java.util.Set;
  */
 public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
 
+    private final List<CallGraphListener<Invoke, JMethod>> listeners = new ArrayList<>();
+
     /**
      * Adds an entry method to this call graph.
      */
@@ -77,6 +81,21 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Adds a listener which is notified when this call graph is
+     * incrementally updated.
+     */
+    public void addListener(CallGraphListener<Invoke, JMethod> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners of an incremental update of this call graph.
+     */
+    void notifyUpdate(CallGraphDelta<Invoke, JMethod> delta) {
+        listeners.forEach(l -> l.onUpdate(delta));
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
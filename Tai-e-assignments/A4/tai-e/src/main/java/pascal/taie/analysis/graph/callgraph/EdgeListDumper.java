@@ -0,0 +1,356 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps call graph edges as gzip-compressed edge lists, one edge per line.
+ * <p>
+ * Edges are streamed to the output as they are traversed, so that no global
+ * sort or in-memory copy of the graph is needed. The output can be split into
+ * several shards (by call site), and the dumping can run in a background
+ * thread while later analyses proceed. If stable ordering is requested,
+ * each shard is sorted by an external merge sort which keeps at most
+ * {@link #RUN_SIZE} lines in memory.
+ */
+class EdgeListDumper {
+
+    private static final Logger logger = LogManager.getLogger(EdgeListDumper.class);
+
+    /**
+     * Separator between call site and its callee.
+     */
+    private static final String SEP = " -> ";
+
+    private static final String GZ = ".gz";
+
+    /**
+     * Maximum number of lines sorted in memory at once.
+     */
+    private static final int RUN_SIZE = 1 << 18;
+
+    private final Path output;
+
+    private final int shards;
+
+    private final boolean sorted;
+
+    /**
+     * @param output path of the output file. If there are multiple shards,
+     *               the shard index is inserted before the ".gz" suffix.
+     * @param shards number of output files
+     * @param sorted whether the lines in each shard are sorted
+     */
+    EdgeListDumper(Path output, int shards, boolean sorted) {
+        this.output = output;
+        this.shards = Math.max(shards, 1);
+        this.sorted = sorted;
+    }
+
+    /**
+     * Dumps the edges of the given call graph in a background thread.
+     * The call graph must not be modified during the dumping.
+     *
+     * @return a future which completes when the dumping finishes, or
+     * completes exceptionally if the dumping fails.
+     */
+    CompletableFuture<Void> dumpAsync(CallGraph<Invoke, JMethod> callGraph) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                dump(callGraph);
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, "cg-edge-dumper");
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Dumps the edges of the given call graph.
+     *
+     * @throws AnalysisException if the edges cannot be written
+     */
+    void dump(CallGraph<Invoke, JMethod> callGraph) {
+        logger.info("Dumping {} call graph edges to {} ({} shard(s)) ...",
+                callGraph.getNumberOfEdges(), output, shards);
+        List<Shard> outs = new ArrayList<>(shards);
+        try {
+            for (int i = 0; i < shards; ++i) {
+                outs.add(sorted ? new SortedShard(getShardPath(i))
+                        : new StreamShard(getShardPath(i)));
+            }
+            for (Iterator<Edge<Invoke, JMethod>> it = callGraph.edges().iterator();
+                 it.hasNext(); ) {
+                Edge<Invoke, JMethod> edge = it.next();
+                Invoke callSite = edge.getCallSite();
+                String line = CallGraphs.toString(callSite) + SEP + edge.getCallee();
+                outs.get(Math.floorMod(getShardKey(callSite), shards)).add(line);
+            }
+            for (Shard out : outs) {
+                out.finish();
+            }
+            logger.info("Finished dumping call graph edges to {}", output);
+        } catch (IOException | UncheckedIOException e) {
+            throw new AnalysisException(
+                    "Failed to dump call graph edges to " + output, e);
+        } finally {
+            for (Shard out : outs) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close shard of {}, caused by {}",
+                            output, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a key of the call site which is stable across executions.
+     */
+    private static int getShardKey(Invoke callSite) {
+        return callSite.getContainer().getSignature().hashCode() * 31
+                + callSite.getIndex();
+    }
+
+    private Path getShardPath(int i) {
+        if (shards == 1) {
+            return output;
+        }
+        String name = output.getFileName().toString();
+        String shardName = name.endsWith(GZ)
+                ? name.substring(0, name.length() - GZ.length()) + "-" + i + GZ
+                : name + "-" + i;
+        return output.resolveSibling(shardName);
+    }
+
+    private static BufferedWriter newWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(path), 1 << 16),
+                StandardCharsets.UTF_8));
+    }
+
+    private static BufferedReader newReader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path), 1 << 16),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Output of a shard. {@link #close()} releases the resources held by
+     * the shard, whether or not {@link #finish()} has succeeded.
+     */
+    private interface Shard extends Closeable {
+
+        void add(String line) throws IOException;
+
+        /**
+         * Completes the output file of this shard.
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * Writes lines in arrival order.
+     */
+    private static class StreamShard implements Shard {
+
+        private final BufferedWriter writer;
+
+        private StreamShard(Path path) throws IOException {
+            writer = newWriter(path);
+        }
+
+        @Override
+        public void add(String line) throws IOException {
+            writer.write(line);
+            writer.newLine();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Sorts lines by external merge sort: full in-memory buffers are sorted
+     * and spilled to temporary run files, which are merged on closing.
+     */
+    private static class SortedShard implements Shard {
+
+        private final Path path;
+
+        private final List<String> buffer = new ArrayList<>();
+
+        private final List<Path> runs = new ArrayList<>();
+
+        private SortedShard(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public void add(String line) throws IOException {
+            buffer.add(line);
+            if (buffer.size() >= RUN_SIZE) {
+                Path run = Files.createTempFile("cg-edges-run", GZ);
+                runs.add(run);
+                writeSorted(run);
+            }
+        }
+
+        private void writeSorted(Path target) throws IOException {
+            Collections.sort(buffer);
+            try (BufferedWriter writer = newWriter(target)) {
+                for (String line : buffer) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (runs.isEmpty()) {
+                writeSorted(path);
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                Path run = Files.createTempFile("cg-edges-run", GZ);
+                runs.add(run);
+                writeSorted(run);
+            }
+            merge();
+        }
+
+        private void merge() throws IOException {
+            PriorityQueue<Run> queue = new PriorityQueue<>();
+            List<Run> opened = new ArrayList<>(runs.size());
+            try (BufferedWriter writer = newWriter(path)) {
+                for (Path run : runs) {
+                    Run r = new Run(newReader(run));
+                    opened.add(r);
+                    if (r.advance()) {
+                        queue.add(r);
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    Run r = queue.poll();
+                    writer.write(r.head);
+                    writer.newLine();
+                    if (r.advance()) {
+                        queue.add(r);
+                    }
+                }
+            } finally {
+                for (Run r : opened) {
+                    r.close();
+                }
+            }
+        }
+
+        /**
+         * Deletes the temporary run files.
+         */
+        @Override
+        public void close() throws IOException {
+            buffer.clear();
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    /**
+     * A sorted run being merged, ordered by its current head line.
+     */
+    private static class Run implements Comparable<Run>, Closeable {
+
+        private final BufferedReader reader;
+
+        private String head;
+
+        private Run(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Moves to the next line of this run, and closes the run
+         * if it is exhausted.
+         *
+         * @return true if this run still has a line, otherwise false.
+         */
+        private boolean advance() throws IOException {
+            head = reader.readLine();
+            if (head == null) {
+                reader.close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            return head.compareTo(other.head);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.graph.IndexedSet;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable CFG of statements stored in compressed sparse row (CSR) form.
+ * <p>
+ * Nodes are identified by {@link Stmt#getIndex()} (the entry and exit nodes
+ * take the two indexes following the last statement), and successors,
+ * predecessors and edges are kept in flat {@code int} arrays, with the kinds
+ * of the edges stored in a parallel {@code byte} array. The index-based
+ * accessors, e.g., {@link #getSuccCount(int)} and {@link #getSucc(int, int)},
+ * never allocate; the {@link Set}-based accessors of {@link CFG} return views
+ * that are created once per node and then reused for all subsequent queries.
+ */
+public class CSRCFG implements CFG<Stmt> {
+
+    private static final Edge.Kind[] KINDS = Edge.Kind.values();
+
+    private final IR ir;
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    /**
+     * Nodes indexed by {@link Stmt#getIndex()}.
+     */
+    private final Stmt[] nodes;
+
+    private final int nNodes;
+
+    /**
+     * Distinct successors of node i: succs[succOffsets[i] .. succOffsets[i + 1]).
+     */
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    /**
+     * Out edges of node i: outEdges[outOffsets[i] .. outOffsets[i + 1]),
+     * whose targets and kinds are in outTargets and outKinds.
+     */
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final byte[] outKinds;
+
+    private final Object[] outEdges;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    private final byte[] inKinds;
+
+    private final Object[] inEdges;
+
+    private final Set<Stmt> nodeView;
+
+    // Lazily-created, per-node views; each is allocated at most once.
+
+    private final Set<?>[] succViews;
+
+    private final Set<?>[] predViews;
+
+    private final Set<?>[] outEdgeViews;
+
+    private final Set<?>[] inEdgeViews;
+
+    private CSRCFG(CFG<Stmt> cfg) {
+        ir = cfg.getIR();
+        entry = cfg.getEntry();
+        exit = cfg.getExit();
+        int size = 0;
+        for (Stmt node : cfg) {
+            size = Math.max(size, node.getIndex() + 1);
+        }
+        nodes = new Stmt[size];
+        for (Stmt node : cfg) {
+            if (nodes[node.getIndex()] != null) {
+                throw new AnalysisException("Duplicate node index "
+                        + node.getIndex() + " in CFG of " + cfg.getMethod());
+            }
+            nodes[node.getIndex()] = node;
+        }
+        nNodes = cfg.getNumberOfNodes();
+        succOffsets = new int[size + 1];
+        predOffsets = new int[size + 1];
+        outOffsets = new int[size + 1];
+        inOffsets = new int[size + 1];
+        for (int i = 0; i < size; ++i) {
+            Stmt node = nodes[i];
+            succOffsets[i + 1] = succOffsets[i] +
+                    (node == null ? 0 : cfg.getSuccsOf(node).size());
+            predOffsets[i + 1] = predOffsets[i] +
+                    (node == null ? 0 : cfg.getPredsOf(node).size());
+            outOffsets[i + 1] = outOffsets[i] +
+                    (node == null ? 0 : cfg.getOutEdgesOf(node).size());
+            inOffsets[i + 1] = inOffsets[i] +
+                    (node == null ? 0 : cfg.getInEdgesOf(node).size());
+        }
+        succs = new int[succOffsets[size]];
+        preds = new int[predOffsets[size]];
+        outTargets = new int[outOffsets[size]];
+        outKinds = new byte[outOffsets[size]];
+        outEdges = new Object[outOffsets[size]];
+        inSources = new int[inOffsets[size]];
+        inKinds = new byte[inOffsets[size]];
+        inEdges = new Object[inOffsets[size]];
+        for (int i = 0; i < size; ++i) {
+            Stmt node = nodes[i];
+            if (node == null) {
+                continue;
+            }
+            int k = succOffsets[i];
+            for (Stmt succ : cfg.getSuccsOf(node)) {
+                succs[k++] = succ.getIndex();
+            }
+            k = predOffsets[i];
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                preds[k++] = pred.getIndex();
+            }
+            k = outOffsets[i];
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                outTargets[k] = edge.getTarget().getIndex();
+                outKinds[k] = (byte) edge.getKind().ordinal();
+                outEdges[k++] = edge;
+            }
+            k = inOffsets[i];
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+                inSources[k] = edge.getSource().getIndex();
+                inKinds[k] = (byte) edge.getKind().ordinal();
+                inEdges[k++] = edge;
+            }
+        }
+        nodeView = new NodeSet();
+        succViews = new Set<?>[size];
+        predViews = new Set<?>[size];
+        outEdgeViews = new Set<?>[size];
+        inEdgeViews = new Set<?>[size];
+    }
+
+    /**
+     * Freezes the given CFG into CSR form. The given CFG must not be
+     * modified afterwards.
+     *
+     * @return the frozen CFG, or the given CFG itself if it is already
+     * a {@link CSRCFG}.
+     */
+    public static CSRCFG freeze(CFG<Stmt> cfg) {
+        return cfg instanceof CSRCFG csr ? csr : new CSRCFG(cfg);
+    }
+
+    // ---------- index-based accessors ----------
+
+    /**
+     * @return upper bound (exclusive) of the node indexes of this CFG.
+     * Note that it may be larger than the number of nodes.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the node of given index, or {@code null} if this CFG
+     * does not have such a node.
+     */
+    public Stmt getNode(int i) {
+        return nodes[i];
+    }
+
+    public int getEntryIndex() {
+        return entry.getIndex();
+    }
+
+    public int getExitIndex() {
+        return exit.getIndex();
+    }
+
+    /**
+     * @return the number of distinct successors of node i.
+     */
+    public int getSuccCount(int i) {
+        return succOffsets[i + 1] - succOffsets[i];
+    }
+
+    /**
+     * @return index of the k-th successor of node i.
+     */
+    public int getSucc(int i, int k) {
+        return succs[succOffsets[i] + k];
+    }
+
+    /**
+     * @return the number of distinct predecessors of node i.
+     */
+    public int getPredCount(int i) {
+        return predOffsets[i + 1] - predOffsets[i];
+    }
+
+    /**
+     * @return index of the k-th predecessor of node i.
+     */
+    public int getPred(int i, int k) {
+        return preds[predOffsets[i] + k];
+    }
+
+    /**
+     * @return the number of out edges of node i.
+     */
+    public int getOutEdgeCount(int i) {
+        return outOffsets[i + 1] - outOffsets[i];
+    }
+
+    /**
+     * @return index of the target of the k-th out edge of node i.
+     */
+    public int getOutEdgeTarget(int i, int k) {
+        return outTargets[outOffsets[i] + k];
+    }
+
+    /**
+     * @return kind of the k-th out edge of node i.
+     */
+    public Edge.Kind getOutEdgeKind(int i, int k) {
+        return KINDS[outKinds[outOffsets[i] + k]];
+    }
+
+    /**
+     * @return the k-th out edge of node i.
+     */
+    @SuppressWarnings("unchecked")
+    public Edge<Stmt> getOutEdge(int i, int k) {
+        return (Edge<Stmt>) outEdges[outOffsets[i] + k];
+    }
+
+    /**
+     * @return the number of in edges of node i.
+     */
+    public int getInEdgeCount(int i) {
+        return inOffsets[i + 1] - inOffsets[i];
+    }
+
+    /**
+     * @return index of the source of the k-th in edge of node i.
+     */
+    public int getInEdgeSource(int i, int k) {
+        return inSources[inOffsets[i] + k];
+    }
+
+    /**
+     * @return kind of the k-th in edge of node i.
+     */
+    public Edge.Kind getInEdgeKind(int i, int k) {
+        return KINDS[inKinds[inOffsets[i] + k]];
+    }
+
+    /**
+     * @return the k-th in edge of node i.
+     */
+    @SuppressWarnings("unchecked")
+    public Edge<Stmt> getInEdge(int i, int k) {
+        return (Edge<Stmt>) inEdges[inOffsets[i] + k];
+    }
+
+    // ---------- CFG interface ----------
+
+    @Override
+    public IR getIR() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return entry;
+    }
+
+    @Override
+    public Stmt getExit() {
+        return exit;
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return node == entry;
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return node == exit;
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        return getIndex(node) >= 0;
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        int i = getIndex(source);
+        int j = getIndex(target);
+        if (i < 0 || j < 0) {
+            return false;
+        }
+        for (int k = succOffsets[i]; k < succOffsets[i + 1]; ++k) {
+            if (succs[k] == j) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Stmt> getPredsOf(Stmt node) {
+        int i = getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        Set<?> view = predViews[i];
+        if (view == null) {
+            view = predViews[i] = new IndexedSet<>(nodes, preds,
+                    predOffsets[i], predOffsets[i + 1], this::indexOf);
+        }
+        return (Set<Stmt>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        int i = getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        Set<?> view = succViews[i];
+        if (view == null) {
+            view = succViews[i] = new IndexedSet<>(nodes, succs,
+                    succOffsets[i], succOffsets[i + 1], this::indexOf);
+        }
+        return (Set<Stmt>) view;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Edge<Stmt>> getInEdgesOf(Stmt node) {
+        int i = getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        Set<?> view = inEdgeViews[i];
+        if (view == null) {
+            view = inEdgeViews[i] = new IndexedSet<>(inEdges, null,
+                    inOffsets[i], inOffsets[i + 1]);
+        }
+        return (Set<Edge<Stmt>>) view;
+    }
+
+    @Override
+    public int getInDegreeOf(Stmt node) {
+        int i = getIndex(node);
+        return i < 0 ? 0 : getInEdgeCount(i);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Edge<Stmt>> getOutEdgesOf(Stmt node) {
+        int i = getIndex(node);
+        if (i < 0) {
+            return Set.of();
+        }
+        Set<?> view = outEdgeViews[i];
+        if (view == null) {
+            view = outEdgeViews[i] = new IndexedSet<>(outEdges, null,
+                    outOffsets[i], outOffsets[i + 1]);
+        }
+        return (Set<Edge<Stmt>>) view;
+    }
+
+    @Override
+    public int getOutDegreeOf(Stmt node) {
+        int i = getIndex(node);
+        return i < 0 ? 0 : getOutEdgeCount(i);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return nodeView;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return nNodes;
+    }
+
+    /**
+     * @return index of given node, or -1 if this CFG does not contain it.
+     */
+    private int getIndex(Stmt node) {
+        int i = node.getIndex();
+        return i >= 0 && i < nodes.length && nodes[i] == node ? i : -1;
+    }
+
+    private int indexOf(Object o) {
+        return o instanceof Stmt stmt ? getIndex(stmt) : -1;
+    }
+
+    /**
+     * Unmodifiable view of the nodes of this CFG in index order.
+     */
+    private class NodeSet extends AbstractSet<Stmt> {
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Stmt stmt && hasNode(stmt);
+        }
+
+        @Override
+        public Iterator<Stmt> iterator() {
+            return new Iterator<>() {
+
+                private int i = advance(0);
+
+                private int advance(int from) {
+                    while (from < nodes.length && nodes[from] == null) {
+                        ++from;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return i < nodes.length;
+                }
+
+                @Override
+                public Stmt next() {
+                    if (i >= nodes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Stmt node = nodes[i];
+                    i = advance(i + 1);
+                    return node;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nNodes;
+        }
+    }
+}
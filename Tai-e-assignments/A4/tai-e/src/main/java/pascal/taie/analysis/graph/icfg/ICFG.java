@@ -83,4 +83,12 @@ public interface ICFG<Method, Node> extends Graph<Node> {
      * @return true if the given node is a call site, otherwise false.
      */
     boolean isCallSite(Node node);
+
+    /**
+     * Adds a listener which is notified when methods are added to this ICFG.
+     * ICFGs which are built up front never add methods, thus they
+     * ignore the listeners.
+     */
+    default void addListener(ICFGListener<Method, Node> listener) {
+    }
 }
@@ -0,0 +1,283 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG which is built on demand, so that its size tracks the region
+ * explored by its clients instead of the whole reachable program.
+ * <p>
+ * A method is <em>added</em> to this ICFG (i.e., its CFG is obtained and
+ * its nodes become nodes of this ICFG) when it is an entry method, or when
+ * a method calling it is expanded. A method is <em>expanded</em> (i.e., the
+ * ICFG edges starting from its nodes are built) when the edges of one of
+ * its nodes are queried for the first time. Thus, the in edges of the entry
+ * of a method only include the call edges from the expanded callers.
+ * <p>
+ * The CFG of a method is built on demand if the "cfg" analysis has not
+ * built it. As the "cfg" analysis, it only builds the CFGs of the methods
+ * in the analysis scope, and the methods without CFGs are absent in the
+ * ICFG, like in the ICFG built up front by {@link ICFGBuilder}. Either way,
+ * the CFGs are frozen into {@link pascal.taie.analysis.graph.cfg.CSRCFG}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(LazyICFG.class);
+
+    private final ThrowAnalysis throwAnalysis = new ThrowAnalysis(
+            new AnalysisConfig(ThrowAnalysis.ID,
+                    "exception", "explicit", "algorithm", "intra"));
+
+    private final CFGBuilder cfgBuilder = new CFGBuilder(
+            new AnalysisConfig(CFGBuilder.ID,
+                    "exception", "explicit", "dump", false));
+
+    /**
+     * CFGs of the methods added to this ICFG.
+     */
+    private final Map<JMethod, CFG<Stmt>> cfgs = Maps.newMap();
+
+    /**
+     * Methods that have no CFGs.
+     */
+    private final Set<JMethod> absentMethods = Sets.newSet();
+
+    private final Set<JMethod> expandedMethods = Sets.newSet();
+
+    private final Map<Stmt, CFG<Stmt>> stmtToCFG = Maps.newMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+    private final List<ICFGListener<JMethod, Stmt>> listeners = new ArrayList<>();
+
+    public LazyICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+        entryMethods().forEach(this::getCFGOf);
+    }
+
+    @Override
+    public void addListener(ICFGListener<JMethod, Stmt> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the CFG of given method, or null if the method has no CFG.
+     * If the method has not been added to this ICFG, it is added.
+     */
+    private @Nullable CFG<Stmt> getCFGOf(JMethod method) {
+        CFG<Stmt> cfg = cfgs.get(method);
+        if (cfg != null || absentMethods.contains(method)) {
+            return cfg;
+        }
+        cfg = buildCFG(method);
+        if (cfg == null) {
+            logger.warn("CFG of {} is absent", method);
+            absentMethods.add(method);
+            return null;
+        }
+        cfgs.put(method, cfg);
+        Set<Stmt> nodes = Sets.newHybridOrderedSet();
+        for (Stmt node : cfg) {
+            stmtToCFG.put(node, cfg);
+            nodes.add(node);
+        }
+        Set<Stmt> view = Collections.unmodifiableSet(nodes);
+        listeners.forEach(l -> l.onMethodAdded(method, view));
+        return cfg;
+    }
+
+    private @Nullable CFG<Stmt> buildCFG(JMethod method) {
+        if (method.isAbstract()) {
+            return null;
+        }
+        IR ir = method.getIR();
+        if (ir.getResult(CFGBuilder.ID) == null && isInScope(method)) {
+            if (ir.getResult(ThrowAnalysis.ID) == null) {
+                ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+            }
+            ir.storeResult(CFGBuilder.ID, cfgBuilder.analyze(ir));
+        }
+        return ICFGBuilder.getCFGOf(method);
+    }
+
+    /**
+     * @return true if given method is in the scope of method analyses
+     * (e.g., "cfg"), otherwise false.
+     */
+    private static boolean isInScope(JMethod method) {
+        return !"app".equals(World.get().getOptions().getScope())
+                || method.getDeclaringClass().isApplication();
+    }
+
+    /**
+     * Builds the edges starting from the nodes of the method
+     * containing given node, if they have not been built.
+     */
+    private void expand(Stmt node) {
+        CFG<Stmt> cfg = stmtToCFG.get(node);
+        if (cfg == null || !expandedMethods.add(cfg.getMethod())) {
+            return;
+        }
+        for (Stmt stmt : cfg) {
+            boolean isCallSite = isCallSite(stmt);
+            cfg.getOutEdgesOf(stmt).forEach(e -> addEdge(isCallSite
+                    ? new CallToReturnEdge<>(e) : new NormalEdge<>(e)));
+            if (isCallSite) {
+                for (JMethod callee : getCalleesOf(stmt)) {
+                    addCallEdges(stmt, cfg.getSuccsOf(stmt), callee);
+                }
+            }
+        }
+    }
+
+    private void addCallEdges(Stmt callSite, Set<Stmt> returnSites, JMethod callee) {
+        CFG<Stmt> calleeCFG = getCFGOf(callee);
+        if (calleeCFG == null) {
+            return;
+        }
+        addEdge(new CallEdge<>(callSite, calleeCFG.getEntry(), callee));
+        Stmt exit = calleeCFG.getExit();
+        Set<Var> retVars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        calleeCFG.getInEdgesOf(exit).forEach(e -> {
+            if (e.getKind() == Edge.Kind.RETURN) {
+                Var retVar = ((Return) e.getSource()).getValue();
+                if (retVar != null) {
+                    retVars.add(retVar);
+                }
+            }
+            if (e.isExceptional()) {
+                exceptions.addAll(e.getExceptions());
+            }
+        });
+        for (Stmt returnSite : returnSites) {
+            addEdge(new ReturnEdge<>(exit, returnSite, callSite,
+                    retVars, exceptions));
+        }
+    }
+
+    private void addEdge(ICFGEdge<Stmt> edge) {
+        outEdges.put(edge.getSource(), edge);
+        inEdges.put(edge.getTarget(), edge);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        expand(stmt);
+        return inEdges.get(stmt);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        expand(stmt);
+        return outEdges.get(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return getCFGOf(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        return stmtToCFG.get(callSite).getSuccsOf(callSite);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        return stmtToCFG.get(stmt).getMethod();
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return stmtToCFG.containsKey(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    /**
+     * @return the nodes of the methods added to this ICFG so far.
+     */
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(stmtToCFG.keySet());
+    }
+}
@@ -87,6 +87,16 @@ public interface ClassHierarchy {
 
     @Nullable JMethod resolveMethod(MethodRef methodRef);
 
+    /**
+     * Dispatches a method invocation on the instances of given class,
+     * i.e., finds the method which is invoked when the method of given
+     * subsignature is called on an object of the class.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    @Nullable JMethod dispatch(JClass receiverClass, Subsignature subsignature);
+
     /**
      * Obtains a method declared in a JRE class by its signature.
      *
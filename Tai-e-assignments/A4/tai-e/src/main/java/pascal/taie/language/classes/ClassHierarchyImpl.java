@@ -28,12 +28,16 @@ import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.util.AnalysisException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static pascal.taie.util.collection.Maps.newConcurrentMap;
 import static pascal.taie.util.collection.Maps.newMap;
 import static pascal.taie.util.collection.Maps.newSmallMap;
 import static pascal.taie.util.collection.Sets.newHybridSet;
@@ -65,6 +69,16 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Listeners which are notified when classes are added.
+     */
+    private final List<ClassHierarchyListener> listeners = new ArrayList<>();
+
+    /**
+     * Lazily-built dispatch tables of classes.
+     */
+    private final ConcurrentMap<JClass, DispatchTable> dispatchTables = newConcurrentMap();
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -117,6 +131,15 @@ public class ClassHierarchyImpl implements ClassHierarchy {
                         .add(jclass);
             }
         }
+        listeners.forEach(l -> l.onClassAdded(jclass));
+    }
+
+    /**
+     * Adds a listener which is notified when classes are added
+     * to this class hierarchy.
+     */
+    public void addListener(ClassHierarchyListener listener) {
+        listeners.add(listener);
     }
 
     @Override
@@ -193,6 +216,28 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return null;
     }
 
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass receiverClass, Subsignature subsignature) {
+        return getDispatchTable(receiverClass).get(subsignature);
+    }
+
+    private DispatchTable getDispatchTable(JClass jclass) {
+        DispatchTable table = dispatchTables.get(jclass);
+        if (table == null) {
+            // build the table of superclass first, outside the map
+            // update as the building is recursive
+            JClass superClass = jclass.getSuperClass();
+            table = DispatchTable.build(jclass,
+                    superClass == null ? null : getDispatchTable(superClass));
+            DispatchTable prev = dispatchTables.putIfAbsent(jclass, table);
+            if (prev != null) {
+                table = prev;
+            }
+        }
+        return table;
+    }
+
     private JMethod lookupMethod(JClass jclass, Subsignature subsignature,
                                  boolean allowAbstract) {
         for (JClass c = jclass; c != null; c = c.getSuperClass()) {
@@ -0,0 +1,187 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.language.classes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dispatch table of a class, which maps the subsignatures of the methods
+ * invocable on instances of the class to their dispatched targets.
+ * <p>
+ * The table consists of the vtable, i.e., the non-abstract methods declared
+ * in the class and its superclasses (the nearest one wins), and the itable,
+ * i.e., the default methods inherited from superinterfaces which are not
+ * overridden by the vtable. Like the JVM, the itable selects the maximally
+ * specific default method (JVMS 5.4.6). The entries are keyed by the dense indexes of
+ * subsignatures ({@link Subsignature#getIndex()}) in an open-addressing
+ * table, so that a lookup is a few array accesses without hashing objects.
+ */
+final class DispatchTable {
+
+    private static final DispatchTable EMPTY = new DispatchTable(Map.of());
+
+    /**
+     * Subsignature index + 1 of each slot, 0 for empty slots.
+     */
+    private final int[] keys;
+
+    private final JMethod[] methods;
+
+    private final int mask;
+
+    private DispatchTable(Map<Subsignature, JMethod> entries) {
+        int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        keys = new int[capacity];
+        methods = new JMethod[capacity];
+        mask = capacity - 1;
+        entries.forEach((subsig, method) -> {
+            int key = subsig.getIndex() + 1;
+            int i = key & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            methods[i] = method;
+        });
+    }
+
+    /**
+     * @return the dispatched target of given subsignature,
+     * or null if no such method.
+     */
+    @Nullable
+    JMethod get(Subsignature subsignature) {
+        int key = subsignature.getIndex() + 1;
+        for (int i = key & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return methods[i];
+            }
+        }
+        return null;
+    }
+
+    private void copyTo(Map<Subsignature, JMethod> entries) {
+        for (JMethod method : methods) {
+            if (method != null) {
+                entries.put(method.getSubsignature(), method);
+            }
+        }
+    }
+
+    /**
+     * Builds the dispatch table of a class.
+     *
+     * @param superTable dispatch table of the superclass,
+     *                   or null if the class has no superclass
+     */
+    static DispatchTable build(JClass jclass, @Nullable DispatchTable superTable) {
+        Map<Subsignature, JMethod> vtable = new LinkedHashMap<>();
+        // inherit the vtable of superclass (excluding its itable entries,
+        // which may be overridden by the default methods of this class's
+        // more specific interfaces)
+        (superTable == null ? EMPTY : superTable).copyTo(vtable);
+        vtable.values().removeIf(m -> m.getDeclaringClass().isInterface());
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            if (!method.isAbstract()) {
+                vtable.put(method.getSubsignature(), method);
+            }
+        }
+        // collect the methods of superinterfaces which are not
+        // overridden by the vtable, in the order of closeness to this class
+        Map<JClass, Set<JClass>> superIfaces = new LinkedHashMap<>();
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            for (JClass iface : c.getInterfaces()) {
+                getSuperInterfaces(iface, superIfaces);
+            }
+        }
+        Map<Subsignature, List<JMethod>> candidates = new LinkedHashMap<>();
+        for (JClass iface : superIfaces.keySet()) {
+            for (JMethod method : iface.getDeclaredMethods()) {
+                if (!method.isStatic() && !method.isPrivate()
+                        && !vtable.containsKey(method.getSubsignature())) {
+                    candidates.computeIfAbsent(method.getSubsignature(),
+                            s -> new ArrayList<>()).add(method);
+                }
+            }
+        }
+        Map<Subsignature, JMethod> entries = new LinkedHashMap<>(vtable);
+        candidates.forEach((subsig, methods) -> {
+            JMethod method = selectDefaultMethod(methods, superIfaces);
+            if (method != null) {
+                entries.put(subsig, method);
+            }
+        });
+        return entries.isEmpty() ? EMPTY : new DispatchTable(entries);
+    }
+
+    /**
+     * Collects given interface and its (direct and indirect) superinterfaces
+     * into {@code superIfaces}, which maps each collected interface to
+     * its superinterfaces.
+     *
+     * @return the superinterfaces of given interface.
+     */
+    private static Set<JClass> getSuperInterfaces(
+            JClass iface, Map<JClass, Set<JClass>> superIfaces) {
+        Set<JClass> result = superIfaces.get(iface);
+        if (result == null) {
+            result = new LinkedHashSet<>();
+            superIfaces.put(iface, result);
+            for (JClass superIface : iface.getInterfaces()) {
+                result.add(superIface);
+                result.addAll(getSuperInterfaces(superIface, superIfaces));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Selects the dispatched target among the methods of the same
+     * subsignature declared in superinterfaces. The methods declared in
+     * a superinterface of another candidate's declaring interface are
+     * overridden, and the target is the non-abstract one among the rest,
+     * i.e., the maximally specific methods. If there are multiple such
+     * methods (which is rejected by Java compilers), the first one is
+     * selected.
+     *
+     * @return the selected method, or null if all maximally specific
+     * methods are abstract.
+     */
+    @Nullable
+    private static JMethod selectDefaultMethod(
+            List<JMethod> methods, Map<JClass, Set<JClass>> superIfaces) {
+        for (JMethod method : methods) {
+            if (!method.isAbstract() && methods.stream().noneMatch(m ->
+                    superIfaces.get(m.getDeclaringClass())
+                            .contains(method.getDeclaringClass()))) {
+                return method;
+            }
+        }
+        return null;
+    }
+}
@@ -24,17 +24,20 @@ package pascal.taie.language.classes;
 
 import pascal.taie.World;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.Indexable;
 import pascal.taie.util.InternalCanonicalized;
 import pascal.taie.util.collection.Maps;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Method name and descriptor.
+ * Each subsignature is interned and numbered with a dense index.
  */
 @InternalCanonicalized
-public class Subsignature {
+public class Subsignature implements Indexable {
 
     // Subsignatures of special methods
     public static final String CLINIT = "void <clinit>()";
@@ -44,12 +47,22 @@ public class Subsignature {
     private static final ConcurrentMap<String, Subsignature> map
             = Maps.newConcurrentMap();
 
+    /**
+     * Counter for indexing subsignatures.
+     */
+    private static final AtomicInteger counter = new AtomicInteger(0);
+
     static {
-        World.registerResetCallback(map::clear);
+        World.registerResetCallback(() -> {
+            map.clear();
+            counter.set(0);
+        });
     }
 
     private final String subsig;
 
+    private final int index;
+
     public static Subsignature get(
             String name, List<Type> parameterTypes, Type returnType) {
         return get(StringReps.toSubsignature(name, parameterTypes, returnType));
@@ -75,6 +88,17 @@ public class Subsignature {
 
     private Subsignature(String subsig) {
         this.subsig = subsig;
+        this.index = counter.getAndIncrement();
+    }
+
+    /**
+     * @return the index of this subsignature. The indexes of all
+     * subsignatures are dense, i.e., they range from 0 to the number
+     * of subsignatures minus 1.
+     */
+    @Override
+    public int getIndex() {
+        return index;
     }
 
     @Override
@@ -0,0 +1,246 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Graph algorithms on {@link IndexedGraph}s. All algorithms are iterative
+ * (so they do not overflow the stack on deep graphs), and only allocate
+ * a constant number of arrays per invocation.
+ */
+public final class GraphKernels {
+
+    private GraphKernels() {
+    }
+
+    /**
+     * Computes strongly connected components by iterative Tarjan's algorithm.
+     *
+     * @return the component index of each node. Components are numbered in
+     * reverse topological order, i.e., if there is an edge from component
+     * c1 to a different component c2, then c1 > c2.
+     */
+    public static int[] scc(IndexedGraph<?> graph) {
+        int n = graph.size();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] comp = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callStack = new int[n];
+        int[] next = new int[n];
+        int nextIndex = 0, nextComp = 0;
+        for (int root = 0; root < n; ++root) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            callStack[csp++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            while (csp > 0) {
+                int node = callStack[csp - 1];
+                if (next[node] < graph.getSuccCount(node)) {
+                    int succ = graph.getSucc(node, next[node]++);
+                    if (index[succ] == -1) {
+                        index[succ] = lowLink[succ] = nextIndex++;
+                        stack[sp++] = succ;
+                        onStack[succ] = true;
+                        callStack[csp++] = succ;
+                    } else if (onStack[succ]) {
+                        lowLink[node] = Math.min(lowLink[node], index[succ]);
+                    }
+                } else {
+                    --csp;
+                    if (lowLink[node] == index[node]) {
+                        int member;
+                        do {
+                            member = stack[--sp];
+                            onStack[member] = false;
+                            comp[member] = nextComp;
+                        } while (member != node);
+                        ++nextComp;
+                    }
+                    if (csp > 0) {
+                        int parent = callStack[csp - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+        return comp;
+    }
+
+    /**
+     * @return the nodes reachable from root in reverse postorder
+     * of a depth-first traversal.
+     */
+    public static int[] reversePostOrder(IndexedGraph<?> graph, int root) {
+        int n = graph.size();
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        int[] order = new int[n];
+        int count = n; // fill order from the end
+        int sp = 0;
+        stack[sp++] = root;
+        visited[root] = true;
+        while (sp > 0) {
+            int node = stack[sp - 1];
+            if (next[node] < graph.getSuccCount(node)) {
+                int succ = graph.getSucc(node, next[node]++);
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    stack[sp++] = succ;
+                }
+            } else {
+                --sp;
+                order[--count] = node;
+            }
+        }
+        return Arrays.copyOfRange(order, count, n);
+    }
+
+    /**
+     * Computes the dominator tree rooted at root by the algorithm of
+     * Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm").
+     *
+     * @return the immediate dominator of each node. The immediate dominator
+     * of root is root itself, and the one of unreachable nodes is -1.
+     */
+    public static int[] dominators(IndexedGraph<?> graph, int root) {
+        int n = graph.size();
+        int[] rpo = reversePostOrder(graph, root);
+        int[] rpoNumber = new int[n];
+        Arrays.fill(rpoNumber, -1);
+        for (int i = 0; i < rpo.length; ++i) {
+            rpoNumber[rpo[i]] = i;
+        }
+        int[] idom = new int[n];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < rpo.length; ++i) {
+                int node = rpo[i];
+                int newIdom = -1;
+                for (int k = 0; k < graph.getPredCount(node); ++k) {
+                    int pred = graph.getPred(node, k);
+                    if (idom[pred] == -1) {
+                        continue; // unprocessed or unreachable
+                    }
+                    newIdom = newIdom == -1 ? pred
+                            : intersect(idom, rpoNumber, pred, newIdom);
+                }
+                if (idom[node] != newIdom) {
+                    idom[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        return idom;
+    }
+
+    private static int intersect(int[] idom, int[] rpoNumber, int b1, int b2) {
+        while (b1 != b2) {
+            while (rpoNumber[b1] > rpoNumber[b2]) {
+                b1 = idom[b1];
+            }
+            while (rpoNumber[b2] > rpoNumber[b1]) {
+                b2 = idom[b2];
+            }
+        }
+        return b1;
+    }
+
+    /**
+     * Computes the post-dominator tree rooted at exit, i.e., the dominator
+     * tree of the reverse graph.
+     *
+     * @return the immediate post-dominator of each node. The immediate
+     * post-dominator of exit is exit itself, and the one of nodes that
+     * cannot reach exit is -1.
+     */
+    public static int[] postDominators(IndexedGraph<?> graph, int exit) {
+        return dominators(graph.reverse(), exit);
+    }
+
+    /**
+     * Computes the loop nesting forest of the nodes reachable from root.
+     * Natural loops are identified by back edges, i.e., edges whose targets
+     * dominate their sources.
+     */
+    public static LoopNestingForest loopNestingForest(IndexedGraph<?> graph, int root) {
+        return new LoopNestingForest(graph, root, dominators(graph, root));
+    }
+
+    /**
+     * Level-synchronous breadth-first search from root, where each level
+     * is expanded in parallel.
+     *
+     * @return the distance (number of edges) from root to each node,
+     * or -1 for unreachable nodes.
+     */
+    public static int[] parallelBFS(IndexedGraph<?> graph, int root) {
+        int n = graph.size();
+        AtomicIntegerArray dist = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; ++i) {
+            dist.set(i, -1);
+        }
+        dist.set(root, 0);
+        int[] frontier = new int[n];
+        int[] nextFrontier = new int[n];
+        frontier[0] = root;
+        int frontierSize = 1;
+        AtomicInteger nextSize = new AtomicInteger();
+        for (int level = 1; frontierSize > 0; ++level) {
+            int[] current = frontier, next = nextFrontier;
+            int d = level;
+            nextSize.set(0);
+            IntStream.range(0, frontierSize).parallel().forEach(i -> {
+                int node = current[i];
+                for (int k = 0; k < graph.getSuccCount(node); ++k) {
+                    int succ = graph.getSucc(node, k);
+                    if (dist.get(succ) == -1 && dist.compareAndSet(succ, -1, d)) {
+                        next[nextSize.getAndIncrement()] = succ;
+                    }
+                }
+            });
+            frontierSize = nextSize.get();
+            frontier = next;
+            nextFrontier = current;
+        }
+        int[] result = new int[n];
+        for (int i = 0; i < n; ++i) {
+            result[i] = dist.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.graph;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable int-indexed snapshot of a {@link Graph}, where nodes are
+ * numbered from 0 to n-1, and successors and predecessors are stored in
+ * compressed sparse row (CSR) arrays. Algorithms in {@link GraphKernels}
+ * work on this representation without allocating per node or per edge.
+ *
+ * @param <N> type of nodes
+ */
+public final class IndexedGraph<N> {
+
+    private final List<N> nodes;
+
+    private final Map<N, Integer> indexes;
+
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    private IndexedGraph(List<N> nodes, Map<N, Integer> indexes,
+                         int[] succOffsets, int[] succs,
+                         int[] predOffsets, int[] preds) {
+        this.nodes = nodes;
+        this.indexes = indexes;
+        this.succOffsets = succOffsets;
+        this.succs = succs;
+        this.predOffsets = predOffsets;
+        this.preds = preds;
+    }
+
+    /**
+     * Takes a snapshot of the given graph. The nodes are numbered in the
+     * iteration order of {@link Graph#getNodes()}.
+     */
+    public static <N> IndexedGraph<N> of(Graph<N> graph) {
+        int n = graph.getNumberOfNodes();
+        List<N> nodes = new ArrayList<>(n);
+        Map<N, Integer> indexes = Maps.newMap(n);
+        for (N node : graph) {
+            indexes.put(node, nodes.size());
+            nodes.add(node);
+        }
+        int[] succOffsets = new int[n + 1];
+        int[] predCounts = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            int count = 0;
+            for (N succ : graph.getSuccsOf(nodes.get(i))) {
+                Integer j = indexes.get(succ);
+                if (j != null) {
+                    ++count;
+                    ++predCounts[j + 1];
+                }
+            }
+            succOffsets[i + 1] = succOffsets[i] + count;
+        }
+        int[] succs = new int[succOffsets[n]];
+        int[] predOffsets = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            predOffsets[i + 1] = predOffsets[i] + predCounts[i + 1];
+        }
+        int[] preds = new int[predOffsets[n]];
+        int[] predCursors = predOffsets.clone();
+        for (int i = 0; i < n; ++i) {
+            int k = succOffsets[i];
+            for (N succ : graph.getSuccsOf(nodes.get(i))) {
+                Integer j = indexes.get(succ);
+                if (j != null) {
+                    succs[k++] = j;
+                    preds[predCursors[j]++] = i;
+                }
+            }
+        }
+        return new IndexedGraph<>(nodes, indexes,
+                succOffsets, succs, predOffsets, preds);
+    }
+
+    /**
+     * @return the reverse of this graph, which shares the arrays
+     * with this graph.
+     */
+    public IndexedGraph<N> reverse() {
+        return new IndexedGraph<>(nodes, indexes,
+                predOffsets, preds, succOffsets, succs);
+    }
+
+    /**
+     * @return the number of nodes in this graph.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the number of edges in this graph.
+     */
+    public int getNumberOfEdges() {
+        return succs.length;
+    }
+
+    /**
+     * @return the node of given index.
+     */
+    public N getNode(int i) {
+        return nodes.get(i);
+    }
+
+    /**
+     * @return all nodes, ordered by their indexes.
+     */
+    public List<N> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * @return index of the given node, or -1 if the node is
+     * not in this graph.
+     */
+    public int getIndex(N node) {
+        return indexes.getOrDefault(node, -1);
+    }
+
+    public int getSuccCount(int i) {
+        return succOffsets[i + 1] - succOffsets[i];
+    }
+
+    /**
+     * @return the k-th successor of node i.
+     */
+    public int getSucc(int i, int k) {
+        return succs[succOffsets[i] + k];
+    }
+
+    public int getPredCount(int i) {
+        return predOffsets[i + 1] - predOffsets[i];
+    }
+
+    /**
+     * @return the k-th predecessor of node i.
+     */
+    public int getPred(int i, int k) {
+        return preds[predOffsets[i] + k];
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.graph;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Unmodifiable set view of elements[ids[from]], ..., elements[ids[to - 1]],
+ * or of elements[from], ..., elements[to - 1] if ids is null. This is
+ * used by graphs in compressed sparse row (CSR) form to expose slices of
+ * their arrays as sets without copying. The elements in the view must be
+ * distinct.
+ * <p>
+ * If the position of each element in the elements array can be looked up
+ * (by the given indexer), {@link #contains(Object)} compares indexes instead
+ * of elements: it takes constant time when ids is null, and is a binary
+ * search when the ids in the slice are sorted.
+ *
+ * @param <E> type of elements
+ */
+public final class IndexedSet<E> extends AbstractSet<E> {
+
+    private final Object[] elements;
+
+    @Nullable
+    private final int[] ids;
+
+    private final int from;
+
+    private final int to;
+
+    @Nullable
+    private final ToIntFunction<Object> indexer;
+
+    private final boolean sorted;
+
+    public IndexedSet(Object[] elements, @Nullable int[] ids, int from, int to) {
+        this(elements, ids, from, to, null);
+    }
+
+    /**
+     * @param indexer returns the position of given object in elements,
+     *                or -1 if the object is not in elements.
+     */
+    public IndexedSet(Object[] elements, @Nullable int[] ids, int from, int to,
+                      @Nullable ToIntFunction<Object> indexer) {
+        this.elements = elements;
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+        this.indexer = indexer;
+        this.sorted = indexer != null && ids != null && isSorted(ids, from, to);
+    }
+
+    private static boolean isSorted(int[] ids, int from, int to) {
+        for (int i = from + 1; i < to; ++i) {
+            if (ids[i - 1] > ids[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E get(int i) {
+        return (E) elements[ids == null ? i : ids[i]];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (indexer == null) {
+            for (int i = from; i < to; ++i) {
+                if (get(i).equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int index = indexer.applyAsInt(o);
+        if (index < 0) {
+            return false;
+        }
+        if (ids == null) {
+            return from <= index && index < to;
+        }
+        if (sorted) {
+            return Arrays.binarySearch(ids, from, to, index) >= 0;
+        }
+        for (int i = from; i < to; ++i) {
+            if (ids[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int i = from;
+
+            @Override
+            public boolean hasNext() {
+                return i < to;
+            }
+
+            @Override
+            public E next() {
+                if (i >= to) {
+                    throw new NoSuchElementException();
+                }
+                return get(i++);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.util.graph;
+
+import java.util.Arrays;
+
+/**
+ * Loop nesting forest of a graph, where each loop is identified by its
+ * header, and the parent of a loop is its innermost enclosing loop.
+ * Loops are natural loops of back edges, and loops sharing a header
+ * are merged.
+ *
+ * @see GraphKernels#loopNestingForest(IndexedGraph, int)
+ */
+public final class LoopNestingForest {
+
+    /**
+     * Header of the innermost loop containing each node, or -1 if the node
+     * is not in any loop. Each header is mapped to itself.
+     */
+    private final int[] headers;
+
+    /**
+     * Header of the enclosing loop of each loop header, or -1 if the loop
+     * is outermost. Unused for non-header nodes.
+     */
+    private final int[] parents;
+
+    LoopNestingForest(IndexedGraph<?> graph, int root, int[] idom) {
+        int n = graph.size();
+        headers = new int[n];
+        parents = new int[n];
+        Arrays.fill(headers, -1);
+        Arrays.fill(parents, -1);
+        // pre/post numbers on dominator tree for O(1) dominance checks
+        int[] pre = new int[n];
+        int[] post = new int[n];
+        numberDominatorTree(idom, root, pre, post);
+        int[] rpo = GraphKernels.reversePostOrder(graph, root);
+        int[] unionFind = new int[n]; // collapses processed loops to headers
+        for (int i = 0; i < n; ++i) {
+            unionFind[i] = i;
+        }
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] stack = new int[n];
+        // process headers from inner to outer, i.e., in reverse RPO
+        for (int r = rpo.length - 1; r >= 0; --r) {
+            int h = rpo[r];
+            int sp = 0;
+            mark[h] = h;
+            for (int k = 0; k < graph.getPredCount(h); ++k) {
+                int pred = graph.getPred(h, k);
+                if (idom[pred] != -1 && dominates(pre, post, h, pred)) {
+                    headers[h] = h; // back edge pred -> h
+                    int rep = find(unionFind, pred);
+                    if (mark[rep] != h) {
+                        mark[rep] = h;
+                        stack[sp++] = rep;
+                    }
+                }
+            }
+            // collect loop body backwards from the sources of back edges
+            while (sp > 0) {
+                int node = stack[--sp];
+                if (headers[node] == node) {
+                    parents[node] = h; // collapsed inner loop
+                } else {
+                    headers[node] = h;
+                }
+                unionFind[node] = h;
+                for (int k = 0; k < graph.getPredCount(node); ++k) {
+                    int pred = graph.getPred(node, k);
+                    if (idom[pred] != -1 && dominates(pre, post, h, pred)) {
+                        int rep = find(unionFind, pred);
+                        if (mark[rep] != h) {
+                            mark[rep] = h;
+                            stack[sp++] = rep;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns pre/post numbers to the nodes of the dominator tree by an
+     * iterative depth-first traversal.
+     */
+    private static void numberDominatorTree(int[] idom, int root,
+                                            int[] pre, int[] post) {
+        int n = idom.length;
+        // children of each node in CSR form
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            if (idom[i] != -1 && i != root) {
+                ++offsets[idom[i] + 1];
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] children = new int[offsets[n]];
+        int[] cursors = offsets.clone();
+        for (int i = 0; i < n; ++i) {
+            if (idom[i] != -1 && i != root) {
+                children[cursors[idom[i]]++] = i;
+            }
+        }
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        int sp = 0, counter = 0;
+        stack[sp++] = root;
+        pre[root] = counter++;
+        while (sp > 0) {
+            int node = stack[sp - 1];
+            if (offsets[node] + next[node] < offsets[node + 1]) {
+                int child = children[offsets[node] + next[node]++];
+                pre[child] = counter++;
+                stack[sp++] = child;
+            } else {
+                post[node] = counter++;
+                --sp;
+            }
+        }
+    }
+
+    private static boolean dominates(int[] pre, int[] post, int a, int b) {
+        return pre[a] <= pre[b] && post[b] <= post[a];
+    }
+
+    private static int find(int[] unionFind, int x) {
+        while (unionFind[x] != x) {
+            unionFind[x] = unionFind[unionFind[x]]; // path halving
+            x = unionFind[x];
+        }
+        return x;
+    }
+
+    /**
+     * @return true if the given node is a loop header.
+     */
+    public boolean isHeader(int node) {
+        return headers[node] == node;
+    }
+
+    /**
+     * @return header of the innermost loop containing the given node
+     * (for a header, the loop it heads), or -1 if the node is not in
+     * any loop.
+     */
+    public int getHeaderOf(int node) {
+        return headers[node];
+    }
+
+    /**
+     * @return header of the loop enclosing the loop of given header,
+     * or -1 if the loop is outermost.
+     */
+    public int getParentOf(int header) {
+        return parents[header];
+    }
+
+    /**
+     * @return the loop nesting depth of given node, i.e., the number of
+     * loops containing it.
+     */
+    public int getDepthOf(int node) {
+        int depth = 0;
+        for (int h = headers[node]; h != -1; h = parents[h]) {
+            ++depth;
+        }
+        return depth;
+    }
+}
@@ -27,6 +27,9 @@ import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +64,73 @@ public final class Tests {
      * @param opts      options for the analysis
      */
     public static void test(String main, String classPath, String id, String... opts) {
+        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
+        String file = getExpectedFile(classPath, main, id);
+        run(main, classPath, id, action, file, opts);
+        if (action.equals("compare")) {
+            assertNoMismatches(id);
+        }
+    }
+
+    /**
+     * Starts an analysis for a specific test case twice, and checks that
+     * the second run, which is given extra options, produces the same
+     * results as the first run.
+     *
+     * @param main      the main class to be analyzed
+     * @param classPath where the main class is located
+     * @param id        ID of the analysis to be executed
+     * @param extraOpts extra options given to analysis <i>id</i> in the
+     *                  second run
+     * @param opts      options for the analysis in both runs, where
+     *                  opts[0] is given to analysis <i>id</i>
+     */
+    public static void testSameResult(String main, String classPath, String id,
+                                      String extraOpts, String... opts) {
+        String[] extendedOpts = opts.clone();
+        extendedOpts[0] = opts[0] + ";" + extraOpts;
+        compareRuns(main, classPath, id, opts, extendedOpts);
+    }
+
+    /**
+     * Starts an analysis for a specific test case twice, and checks that
+     * the second run, which is given extra arguments (e.g., options of
+     * other analyses like {@code "-a", "icfg=lazy:true"}), produces the
+     * same results as the first run.
+     *
+     * @param main      the main class to be analyzed
+     * @param classPath where the main class is located
+     * @param id        ID of the analysis to be executed
+     * @param extraArgs extra arguments appended to the second run
+     * @param opts      options for the analysis in both runs, where
+     *                  opts[0] is given to analysis <i>id</i>
+     */
+    public static void testSameResult(String main, String classPath, String id,
+                                      String[] extraArgs, String... opts) {
+        String[] extendedOpts = Arrays.copyOf(opts, opts.length + extraArgs.length);
+        System.arraycopy(extraArgs, 0, extendedOpts, opts.length, extraArgs.length);
+        compareRuns(main, classPath, id, opts, extendedOpts);
+    }
+
+    private static void compareRuns(String main, String classPath, String id,
+                                    String[] opts, String[] extendedOpts) {
+        File file;
+        try {
+            file = File.createTempFile(main + "-" + id + "-", ".txt");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            run(main, classPath, id, "dump", file.getPath(), opts);
+            run(main, classPath, id, "compare", file.getPath(), extendedOpts);
+            assertNoMismatches(id);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void run(String main, String classPath, String id,
+                            String action, String file, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         Collections.addAll(args, "-cp", classPath);
@@ -81,18 +151,17 @@ public final class Tests {
             Collections.addAll(args, opts);
         }
         // set up result processor
-        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        String file = getExpectedFile(classPath, main, id);
         String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
                 ResultProcessor.ID, id, action, file);
         Collections.addAll(args, "-a", processArg);
         Main.main(args.toArray(new String[0]));
-        if (action.equals("compare")) {
-            Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
-            Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
-                            String.join("\n", mismatches),
-                    mismatches.isEmpty());
-        }
+    }
+
+    private static void assertNoMismatches(String id) {
+        Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+        Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
+                        String.join("\n", mismatches),
+                mismatches.isEmpty());
     }
 
     public static void testPTA(String dir, String main, String... opts) {
@@ -26,10 +26,23 @@ import org.junit.Test;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 public class InterCPTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
 
+    /**
+     * Where the changed versions of the input classes are located.
+     */
+    private static final String CHANGED_CLASS_PATH = "src/test/resources/dataflow/constprop/incremental";
+
+    private static final String[] INPUT_CLASSES = {
+            "Example", "Reference", "Fibonacci", "MultiIntArgs"
+    };
+
     void test(String inputClass) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
                 "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha"
@@ -38,6 +51,17 @@ public class InterCPTest {
         );
     }
 
+    /**
+     * Checks that given options of the analysis do not change its results.
+     */
+    void testSameResult(String extraOpts) {
+        for (String inputClass : INPUT_CLASSES) {
+            Tests.testSameResult(inputClass, CLASS_PATH,
+                    InterConstantPropagation.ID, extraOpts,
+                    "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha");
+        }
+    }
+
     @Test
     public void testExample() {
         test("Example");
@@ -57,4 +81,43 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testIDESolver() {
+        testSameResult("solver:ide");
+    }
+
+    @Test
+    public void testLazyICFG() {
+        for (String inputClass : INPUT_CLASSES) {
+            Tests.testSameResult(inputClass, CLASS_PATH,
+                    InterConstantPropagation.ID, new String[]{"-a", "icfg=lazy:true"},
+                    "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha");
+        }
+    }
+
+    @Test
+    public void testParallelSolver() {
+        testSameResult("parallelism:4");
+    }
+
+    /**
+     * Solves MultiIntArgs incrementally, then its changed version, and then
+     * the original version again, and checks that each result is the same
+     * as solving from scratch.
+     */
+    @Test
+    public void testIncremental() throws IOException {
+        File snapshot = File.createTempFile("MultiIntArgs-", ".snapshot");
+        snapshot.delete();
+        try {
+            for (String classPath : List.of(CLASS_PATH, CHANGED_CLASS_PATH, CLASS_PATH)) {
+                Tests.testSameResult("MultiIntArgs", classPath,
+                        InterConstantPropagation.ID, "incremental:" + snapshot,
+                        "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha");
+            }
+        } finally {
+            snapshot.delete();
+        }
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardedDataflowResultTest {
+
+    private static final int METHODS = 10;
+
+    private static final int NODES = 5;
+
+    /**
+     * Serializes the facts, i.e., lists of ints, and counts the facts
+     * written and read.
+     */
+    private static class Serializer implements FactSerializer<String, List<Integer>> {
+
+        private int writes;
+
+        private int reads;
+
+        @Override
+        public void write(String method, List<Integer> fact, DataOutputStream out)
+                throws IOException {
+            ++writes;
+            out.writeInt(fact.size());
+            for (int i : fact) {
+                out.writeInt(i);
+            }
+        }
+
+        @Override
+        public List<Integer> read(String method, ByteBuffer buf) {
+            ++reads;
+            int size = buf.getInt();
+            List<Integer> fact = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                fact.add(buf.getInt());
+            }
+            return fact;
+        }
+    }
+
+    private static String node(int method, int i) {
+        return "m" + method + "/" + i;
+    }
+
+    private static String methodOf(String node) {
+        return node.substring(0, node.indexOf('/'));
+    }
+
+    /**
+     * With a budget of a few bytes, only the shards in use stay in memory.
+     * Checks that the facts survive spilling and reloading, including the
+     * modifications of obtained facts before their shards are released,
+     * and that read-only queries do not pin the shards.
+     */
+    @Test
+    public void testSpillAndReload() {
+        Serializer serializer = new Serializer();
+        ShardedDataflowResult<String, String, List<Integer>> result =
+                new ShardedDataflowResult<>(
+                        ShardedDataflowResultTest::methodOf, serializer, 16);
+        for (int m = 0; m < METHODS; ++m) {
+            for (int i = 0; i < NODES; ++i) {
+                result.setInFact(node(m, i), new ArrayList<>(List.of(m)));
+                result.setOutFact(node(m, i), new ArrayList<>(List.of(m, i)));
+            }
+            result.release();
+        }
+        Assert.assertTrue("No shard is spilled", serializer.writes > 0);
+        // modify facts of each method, as the solver does
+        for (int m = 0; m < METHODS; ++m) {
+            for (int i = 0; i < NODES; ++i) {
+                result.getOutFact(node(m, i)).add(-1);
+            }
+            result.release();
+        }
+        Assert.assertTrue("No shard is reloaded", serializer.reads > 0);
+        result.setReadOnly();
+        for (int round = 0; round < 2; ++round) {
+            int reads = serializer.reads;
+            for (int m = 0; m < METHODS; ++m) {
+                for (int i = 0; i < NODES; ++i) {
+                    Assert.assertEquals(List.of(m), result.getInFact(node(m, i)));
+                    Assert.assertEquals(List.of(m, i, -1), result.getOutFact(node(m, i)));
+                }
+            }
+            // each shard is loaded again as it has been spilled to make
+            // room for the shards queried after it
+            Assert.assertEquals(METHODS * NODES * 2, serializer.reads - reads);
+        }
+        Assert.assertNull(result.getInFact(node(METHODS, 0)));
+    }
+
+    /**
+     * With a large budget, nothing is spilled.
+     */
+    @Test
+    public void testWithinBudget() {
+        Serializer serializer = new Serializer();
+        ShardedDataflowResult<String, String, List<Integer>> result =
+                new ShardedDataflowResult<>(
+                        ShardedDataflowResultTest::methodOf, serializer, 1L << 20);
+        for (int m = 0; m < METHODS; ++m) {
+            result.setInFact(node(m, 0), new ArrayList<>(List.of(m)));
+            result.release();
+        }
+        result.setReadOnly();
+        for (int m = 0; m < METHODS; ++m) {
+            Assert.assertEquals(List.of(m), result.getInFact(node(m, 0)));
+        }
+        Assert.assertEquals(0, serializer.writes);
+        Assert.assertEquals(0, serializer.reads);
+    }
+}
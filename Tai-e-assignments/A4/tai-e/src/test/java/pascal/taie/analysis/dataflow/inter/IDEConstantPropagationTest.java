@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.inter.ide.IDESolver;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+
+public class IDEConstantPropagationTest {
+
+    /**
+     * MultiIntArgs calls foo() twice, thus the end summaries of foo()
+     * computed for the first call are reused by the second one.
+     */
+    @Test
+    public void testSummaryReuse() {
+        Main.main(new String[]{"-pp",
+                "-cp", "src/test/resources/dataflow/constprop/inter",
+                "-m", "MultiIntArgs",
+                "-a", "cg=algorithm:cha", "-a", "icfg=dump:false"});
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        IDESolver<JMethod, Stmt, Var, Value> solver = new IDESolver<>(
+                new IDEConstantPropagation(icfg, Map.of()));
+        solver.solve();
+        Assert.assertTrue("End summaries are never reused",
+                solver.getNumberOfSummaryReuses() > 0);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+public class CallGraphReachabilityTest {
+
+    /**
+     * Checks the reachability index against breadth-first search for every
+     * pair of methods in a call graph with recursion cycles, which is
+     * indexed by different numbers of interval labelings.
+     */
+    @Test
+    public void testRecursion() {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/cha/",
+                "-m", "Recursion", "-a", "cg=algorithm:cha"});
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        CallGraphCondensation<JMethod> condensation = callGraph.condense();
+        Assert.assertTrue("Call graph has no recursion",
+                IntStream.range(0, condensation.getNumberOfComponents())
+                        .anyMatch(condensation::isRecursive));
+        List<JMethod> methods = callGraph.reachableMethods().toList();
+        for (int labelings : new int[]{1, 3, 8}) {
+            CallGraphReachability<JMethod> reachability =
+                    new CallGraphReachability<>(condensation, labelings);
+            for (JMethod from : methods) {
+                Set<JMethod> reachable = reachableFrom(callGraph, from);
+                for (JMethod to : methods) {
+                    Assert.assertEquals(from + " -> " + to + " (" + labelings + " labelings)",
+                            reachable.contains(to), reachability.canReach(from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the methods reachable from given method (including itself)
+     * by breadth-first search.
+     */
+    private static Set<JMethod> reachableFrom(
+            CallGraph<Invoke, JMethod> callGraph, JMethod method) {
+        Set<JMethod> reachable = Sets.newSet();
+        Deque<JMethod> queue = new ArrayDeque<>();
+        reachable.add(method);
+        queue.add(method);
+        while (!queue.isEmpty()) {
+            for (JMethod callee : callGraph.getCalleesOfM(queue.poll())) {
+                if (reachable.add(callee)) {
+                    queue.add(callee);
+                }
+            }
+        }
+        return reachable;
+    }
+}
@@ -22,13 +22,52 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraphDelta;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchyImpl;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassBuilder;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.language.type.ClassType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 public class CHATest {
     
     protected static void test(String main) {
-        Tests.test(main, "src/test/resources/cha/", "cg", "algorithm:cha");
+        test(main, "algorithm:cha");
+    }
+
+    protected static void test(String main, String opts) {
+        Tests.test(main, "src/test/resources/cha/", "cg", opts);
     }
 
     @Test
@@ -50,4 +89,246 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    /**
+     * Call sites in constant-folded branches are pruned, except in
+     * methods with live try blocks, where all call sites are kept.
+     */
+    @Test
+    public void testPruneDeadCode() {
+        test("DeadCode", "algorithm:cha;prune-dead-code:true");
+    }
+
+    /**
+     * Soot's Java frontend does not support default methods, thus this
+     * test case is given as bytecode (compiled from DefaultMethod.java).
+     */
+    @Test
+    public void testDefaultMethod() {
+        Tests.test("DefaultMethod", "src/test/resources/cha/java8/", "cg", "algorithm:cha");
+    }
+
+    /**
+     * Checks that a call graph read from the cache is the same as
+     * the one built from scratch, and that the cache is rebuilt when
+     * the analyzed program changes.
+     */
+    @Test
+    public void testCache() throws IOException {
+        File cache = File.createTempFile("cg-", ".cache");
+        cache.delete();
+        try {
+            String opts = "algorithm:cha;cache:" + cache;
+            test("VirtualCall", opts);
+            Assert.assertTrue("Call graph is not cached", cache.isFile());
+            // the cache is not written again if it is reused
+            Assert.assertTrue(cache.setLastModified(0));
+            test("VirtualCall", opts);
+            Assert.assertEquals("Cached call graph is not reused",
+                    0, cache.lastModified());
+            // the cache is stale for a different main class
+            test("StaticCall", opts);
+            Assert.assertNotEquals("Stale call graph is reused",
+                    0, cache.lastModified());
+        } finally {
+            cache.delete();
+        }
+    }
+
+    /**
+     * Dumps the call graph edges to sorted shards in background, and checks
+     * that the shards together contain exactly the edges of the call graph.
+     */
+    @Test
+    public void testDumpEdges() throws IOException {
+        Path dir = Files.createTempDirectory("cg-edges");
+        try {
+            Path output = dir.resolve("edges.txt.gz");
+            Main.main(new String[]{"-pp", "-cp", "src/test/resources/cha/",
+                    "-m", "VirtualCall", "-a", "cg=algorithm:cha;action:dump-edges;" +
+                    "file:" + output + ";shards:3;sorted:true;async:true"});
+            CallGraphBuilder.awaitEdgeDump();
+            CallGraph<Invoke, JMethod> callGraph = World.get().getResult("cg");
+            List<String> expected = new ArrayList<>();
+            callGraph.edges().forEach(e -> expected.add(
+                    CallGraphs.toString(e.getCallSite()) + " -> " + e.getCallee()));
+            List<Path> shards;
+            try (Stream<Path> paths = Files.list(dir)) {
+                shards = paths.toList();
+            }
+            Assert.assertEquals(3, shards.size());
+            List<String> given = new ArrayList<>();
+            for (Path shard : shards) {
+                List<String> lines = readLines(shard);
+                Assert.assertEquals("Shard " + shard + " is not sorted",
+                        lines.stream().sorted().toList(), lines);
+                given.addAll(lines);
+            }
+            Assert.assertEquals(expected.stream().sorted().toList(),
+                    given.stream().sorted().toList());
+        } finally {
+            try (Stream<Path> paths = Files.list(dir)) {
+                paths.forEach(p -> p.toFile().delete());
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static List<String> readLines(Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)),
+                StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    /**
+     * Profiles the call graph of VirtualCall, where b.foo() has 3 targets
+     * and every other call site has 1 target.
+     */
+    @Test
+    public void testProfile() throws IOException {
+        File profile = File.createTempFile("cg-profile-", ".json");
+        try {
+            Main.main(new String[]{"-pp", "-cp", "src/test/resources/cha/",
+                    "-m", "VirtualCall", "-a", "cg=algorithm:cha;profile:" + profile +
+                    ";megamorphic-threshold:3;profile-top:2"});
+            JsonNode json = new ObjectMapper().readTree(profile);
+            JsonNode summary = json.get("summary");
+            Assert.assertEquals(7, summary.get("methods").asInt());
+            Assert.assertEquals(4, summary.get("callSites").asInt());
+            Assert.assertEquals(6, summary.get("edges").asInt());
+            JsonNode histogram = json.get("fanOutHistogram");
+            Assert.assertEquals(2, histogram.size());
+            Assert.assertEquals(3, histogram.get("1").asInt());
+            Assert.assertEquals(1, histogram.get("3").asInt());
+            Assert.assertEquals(3, json.get("megamorphicThreshold").asInt());
+            JsonNode megamorphic = json.get("megamorphicCallSites");
+            Assert.assertEquals(1, megamorphic.size());
+            Assert.assertEquals(3, megamorphic.get(0).get("targets").asInt());
+            Assert.assertEquals(0.5, megamorphic.get(0).get("edgeShare").asDouble(), 1e-9);
+            Assert.assertEquals(megamorphic.get(0), json.get("callSites").get(0));
+            JsonNode topCallers = json.get("topCallers");
+            Assert.assertEquals(2, topCallers.size());
+            Assert.assertEquals("<VirtualCall: void main(java.lang.String[])>",
+                    topCallers.get(0).get("method").asText());
+            Assert.assertEquals(4, topCallers.get(0).get("callees").asInt());
+            Assert.assertEquals("<A: void <init>()>",
+                    topCallers.get(1).get("method").asText());
+            JsonNode topCallees = json.get("topCallees");
+            Assert.assertEquals(2, topCallees.size());
+            for (JsonNode callee : topCallees) {
+                Assert.assertEquals(1, callee.get("callers").asInt());
+            }
+        } finally {
+            profile.delete();
+        }
+    }
+
+    /**
+     * Adds a class to the class hierarchy after the call graph of
+     * VirtualCall has been built, and checks that the call graph is updated
+     * with the new target of b.foo().
+     */
+    @Test
+    public void testIncremental() {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/cha/",
+                "-m", "VirtualCall", "-a", "cg=algorithm:cha;incremental:true"});
+        DefaultCallGraph callGraph = World.get().getResult("cg");
+        List<CallGraphDelta<Invoke, JMethod>> deltas = new ArrayList<>();
+        callGraph.addListener(deltas::add);
+        ClassHierarchyImpl hierarchy = (ClassHierarchyImpl) World.get().getClassHierarchy();
+        // F extends B, and overrides foo() as C does
+        JClass f = copyClass(hierarchy.getClass("C"), "F");
+        hierarchy.addClass(f);
+        JMethod newFoo = f.getDeclaredMethod("foo");
+        Invoke callSite = World.get().getMainMethod().getIR().stmts()
+                .filter(s -> s instanceof Invoke invoke
+                        && invoke.getMethodRef().getName().equals("foo"))
+                .map(s -> (Invoke) s)
+                .findFirst()
+                .orElseThrow();
+        Assert.assertEquals(Set.of("<A: void foo()>", "<C: void foo()>",
+                        "<D: void foo()>", "<F: void foo()>"),
+                callGraph.getCalleesOf(callSite).stream()
+                        .map(JMethod::toString)
+                        .collect(Collectors.toSet()));
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(List.of(newFoo), deltas.get(0).newMethods());
+        Assert.assertEquals(List.of(callSite), deltas.get(0).newEdges()
+                .stream()
+                .map(Edge::getCallSite)
+                .toList());
+    }
+
+    /**
+     * @return a new class with given name, which has the same superclass,
+     * interfaces and methods (sharing method bodies) as given class.
+     */
+    private static JClass copyClass(JClass jclass, String name) {
+        JClass copy = new JClass(jclass.getClassLoader(), name, jclass.getModuleName());
+        copy.build(new JClassBuilder() {
+            @Override
+            public void build(JClass c) {
+                c.build(this);
+            }
+
+            @Override
+            public Set<Modifier> getModifiers() {
+                return jclass.getModifiers();
+            }
+
+            @Override
+            public String getSimpleName() {
+                return name;
+            }
+
+            @Override
+            public ClassType getClassType() {
+                return World.get().getTypeSystem()
+                        .getClassType(jclass.getClassLoader(), name);
+            }
+
+            @Override
+            public JClass getSuperClass() {
+                return jclass.getSuperClass();
+            }
+
+            @Override
+            public Collection<JClass> getInterfaces() {
+                return jclass.getInterfaces();
+            }
+
+            @Override
+            public JClass getOuterClass() {
+                return null;
+            }
+
+            @Override
+            public Collection<JField> getDeclaredFields() {
+                return List.of();
+            }
+
+            @Override
+            public Collection<JMethod> getDeclaredMethods() {
+                return jclass.getDeclaredMethods()
+                        .stream()
+                        .map(m -> new JMethod(copy, m.getName(), m.getModifiers(),
+                                m.getParamTypes(), m.getReturnType(), m.getExceptions(),
+                                AnnotationHolder.emptyHolder(), null, m.getMethodSource()))
+                        .toList();
+            }
+
+            @Override
+            public AnnotationHolder getAnnotationHolder() {
+                return AnnotationHolder.emptyHolder();
+            }
+
+            @Override
+            public boolean isApplication() {
+                return true;
+            }
+        });
+        return copy;
+    }
 }
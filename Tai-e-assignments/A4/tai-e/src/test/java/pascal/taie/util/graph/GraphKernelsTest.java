@@ -0,0 +1,203 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+
+public class GraphKernelsTest {
+
+    /**
+     * @return an indexed graph of nodes 0 to n-1 with given edges, where
+     * each edge is a pair of source and target.
+     */
+    private static IndexedGraph<Integer> graph(int n, int... edges) {
+        SimpleGraph<Integer> graph = new SimpleGraph<>();
+        for (int i = 0; i < n; ++i) {
+            graph.addNode(i);
+        }
+        for (int i = 0; i < edges.length; i += 2) {
+            graph.addEdge(edges[i], edges[i + 1]);
+        }
+        return IndexedGraph.of(graph);
+    }
+
+    /**
+     * Converts the result indexed by graph indexes to the one indexed
+     * by nodes, and maps result values (which are indexes) to nodes.
+     */
+    private static int[] toNodes(IndexedGraph<Integer> graph, int[] result) {
+        int[] nodes = new int[result.length];
+        for (int i = 0; i < result.length; ++i) {
+            int v = result[graph.getIndex(i)];
+            nodes[i] = v == -1 ? -1 : graph.getNode(v);
+        }
+        return nodes;
+    }
+
+    /**
+     * 0 -> {1, 2} -> 3, 4 -> 3 where 4 is unreachable from 0,
+     * and 5 is isolated.
+     */
+    private static final IndexedGraph<Integer> DIAMOND =
+            graph(6, 0, 1, 0, 2, 1, 3, 2, 3, 4, 3);
+
+    /**
+     * Outer loop 1 -> 2 -> 3 -> 4 -> 1 with inner loop 2 -> 3 -> 2,
+     * entered from 0 and exited at 1 -> 5.
+     */
+    private static final IndexedGraph<Integer> NESTED_LOOPS =
+            graph(6, 0, 1, 1, 2, 2, 3, 3, 2, 3, 4, 4, 1, 1, 5);
+
+    /**
+     * Irreducible loop 1 <-> 2 entered from both 1 and 2, and
+     * a self-loop on 3.
+     */
+    private static final IndexedGraph<Integer> IRREDUCIBLE =
+            graph(4, 0, 1, 0, 2, 1, 2, 2, 1, 1, 3, 3, 3);
+
+    @Test
+    public void testDominators() {
+        Assert.assertArrayEquals(new int[]{0, 0, 0, 0, -1, -1},
+                toNodes(DIAMOND, GraphKernels.dominators(
+                        DIAMOND, DIAMOND.getIndex(0))));
+        Assert.assertArrayEquals(new int[]{0, 0, 1, 2, 3, 1},
+                toNodes(NESTED_LOOPS, GraphKernels.dominators(
+                        NESTED_LOOPS, NESTED_LOOPS.getIndex(0))));
+        Assert.assertArrayEquals(new int[]{0, 0, 0, 1},
+                toNodes(IRREDUCIBLE, GraphKernels.dominators(
+                        IRREDUCIBLE, IRREDUCIBLE.getIndex(0))));
+    }
+
+    @Test
+    public void testPostDominators() {
+        Assert.assertArrayEquals(new int[]{3, 3, 3, 3, 3, -1},
+                toNodes(DIAMOND, GraphKernels.postDominators(
+                        DIAMOND, DIAMOND.getIndex(3))));
+        Assert.assertArrayEquals(new int[]{1, 5, 3, 4, 1, 5},
+                toNodes(NESTED_LOOPS, GraphKernels.postDominators(
+                        NESTED_LOOPS, NESTED_LOOPS.getIndex(5))));
+    }
+
+    @Test
+    public void testNestedLoops() {
+        LoopNestingForest forest = GraphKernels.loopNestingForest(
+                NESTED_LOOPS, NESTED_LOOPS.getIndex(0));
+        int[] headers = new int[6];
+        int[] depths = new int[6];
+        for (int i = 0; i < 6; ++i) {
+            int h = forest.getHeaderOf(NESTED_LOOPS.getIndex(i));
+            headers[i] = h == -1 ? -1 : NESTED_LOOPS.getNode(h);
+            depths[i] = forest.getDepthOf(NESTED_LOOPS.getIndex(i));
+        }
+        Assert.assertArrayEquals(new int[]{-1, 1, 2, 2, 1, -1}, headers);
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 2, 1, 0}, depths);
+        Assert.assertTrue(forest.isHeader(NESTED_LOOPS.getIndex(1)));
+        Assert.assertTrue(forest.isHeader(NESTED_LOOPS.getIndex(2)));
+        Assert.assertFalse(forest.isHeader(NESTED_LOOPS.getIndex(3)));
+        Assert.assertEquals(NESTED_LOOPS.getIndex(1),
+                forest.getParentOf(NESTED_LOOPS.getIndex(2)));
+        Assert.assertEquals(-1, forest.getParentOf(NESTED_LOOPS.getIndex(1)));
+    }
+
+    /**
+     * Irreducible loops have no back edges (neither node of the loop
+     * dominates the other), thus they are not natural loops.
+     */
+    @Test
+    public void testIrreducibleLoop() {
+        LoopNestingForest forest = GraphKernels.loopNestingForest(
+                IRREDUCIBLE, IRREDUCIBLE.getIndex(0));
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(-1, forest.getHeaderOf(IRREDUCIBLE.getIndex(i)));
+        }
+        int selfLoop = IRREDUCIBLE.getIndex(3);
+        Assert.assertTrue(forest.isHeader(selfLoop));
+        Assert.assertEquals(1, forest.getDepthOf(selfLoop));
+        Assert.assertEquals(-1, forest.getParentOf(selfLoop));
+    }
+
+    @Test
+    public void testUnreachableNodesNotInLoops() {
+        // 1 <-> 2 is a loop unreachable from 0
+        IndexedGraph<Integer> graph = graph(3, 1, 2, 2, 1);
+        LoopNestingForest forest = GraphKernels.loopNestingForest(
+                graph, graph.getIndex(0));
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(-1, forest.getHeaderOf(i));
+        }
+    }
+
+    @Test
+    public void testParallelBFS() {
+        Assert.assertArrayEquals(new int[]{0, 1, 1, 2, -1, -1},
+                toDistances(DIAMOND, GraphKernels.parallelBFS(
+                        DIAMOND, DIAMOND.getIndex(0))));
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3, 4, 2},
+                toDistances(NESTED_LOOPS, GraphKernels.parallelBFS(
+                        NESTED_LOOPS, NESTED_LOOPS.getIndex(0))));
+        // wide frontiers to exercise the parallel expansion
+        Random random = new Random(0);
+        int n = 5000;
+        int[] edges = new int[n * 8];
+        for (int i = 0; i < edges.length; ++i) {
+            edges[i] = random.nextInt(n);
+        }
+        IndexedGraph<Integer> graph = graph(n, edges);
+        Assert.assertArrayEquals(bfs(graph, 0),
+                GraphKernels.parallelBFS(graph, 0));
+    }
+
+    private static int[] toDistances(IndexedGraph<Integer> graph, int[] dist) {
+        int[] result = new int[dist.length];
+        for (int i = 0; i < dist.length; ++i) {
+            result[i] = dist[graph.getIndex(i)];
+        }
+        return result;
+    }
+
+    private static int[] bfs(IndexedGraph<?> graph, int root) {
+        int[] dist = new int[graph.size()];
+        Arrays.fill(dist, -1);
+        dist[root] = 0;
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < graph.getSuccCount(node); ++k) {
+                int succ = graph.getSucc(node, k);
+                if (dist[succ] == -1) {
+                    dist[succ] = dist[node] + 1;
+                    queue.add(succ);
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,68 @@
+public class DeadCode {
+
+    public static void main(String[] args) {
+        ifBranch();
+        switchBranch();
+        unknownBranch(args.length);
+        tryBlock();
+    }
+
+    static void ifBranch() {
+        int x = 1;
+        if (x > 0) {
+            Target.live();
+        } else {
+            Target.dead();
+        }
+    }
+
+    static void switchBranch() {
+        int k = 2;
+        switch (k) {
+            case 1:
+                Target.dead();
+                break;
+            case 2:
+                Target.live();
+                break;
+            default:
+                Target.dead();
+        }
+    }
+
+    static void unknownBranch(int n) {
+        if (n > 0) {
+            Target.live();
+        } else {
+            Target.live2();
+        }
+    }
+
+    static void tryBlock() {
+        int x = 1;
+        try {
+            if (x > 0) {
+                Target.live();
+            } else {
+                Target.dead();
+            }
+        } catch (RuntimeException e) {
+            Target.handler();
+        }
+    }
+}
+
+class Target {
+
+    static void live() {
+    }
+
+    static void live2() {
+    }
+
+    static void dead() {
+    }
+
+    static void handler() {
+    }
+}
@@ -0,0 +1,69 @@
+public class Recursion {
+
+    public static void main(String[] args) {
+        isEven(10);
+        Node node = new Leaf();
+        node.size();
+        loop(3);
+        new Walker().walk(node);
+    }
+
+    static boolean isEven(int n) {
+        return n == 0 || isOdd(n - 1);
+    }
+
+    static boolean isOdd(int n) {
+        return n != 0 && isEven(n - 1);
+    }
+
+    static int loop(int n) {
+        return n <= 0 ? leaf() : loop(n - 1);
+    }
+
+    static int leaf() {
+        return 0;
+    }
+}
+
+abstract class Node {
+    abstract int size();
+}
+
+class Leaf extends Node {
+    int size() {
+        return Recursion.leaf() + 1;
+    }
+}
+
+class Tree extends Node {
+
+    Node left;
+
+    Node right;
+
+    int size() {
+        return left.size() + right.size() + count();
+    }
+
+    static int count() {
+        return Recursion.isEven(1) ? 1 : 0;
+    }
+}
+
+class Walker {
+
+    void walk(Node node) {
+        if (node instanceof Tree) {
+            visit((Tree) node);
+        }
+    }
+
+    void visit(Tree tree) {
+        walk(tree.left);
+        walk(tree.right);
+        done();
+    }
+
+    void done() {
+    }
+}
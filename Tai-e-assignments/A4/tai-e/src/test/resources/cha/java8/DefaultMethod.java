@@ -0,0 +1,27 @@
+interface I {
+    default void m() {
+    }
+}
+
+interface J extends I {
+    default void m() {
+    }
+}
+
+class C implements I, J {
+}
+
+class E extends C implements I {
+}
+
+public class DefaultMethod {
+
+    public static void main(String[] args) {
+        C c = new C();
+        c.m();
+        E e = new E();
+        e.m();
+        I i = e;
+        i.m();
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.*;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Skeleton of the solvers of context-insensitive pointer analysis, which
+ * implements the rules of statements and method calls. The subclasses
+ * decide how the PFG edges, points-to sets and call edges are added,
+ * and may override how the front end is accessed.
+ *
+ * @param <G> type of the pointer flow graph
+ */
+abstract class AbstractSolver<G extends AbstractPointerFlowGraph> {
+
+    protected final IndexedHeapModel heapModel;
+
+    protected DefaultCallGraph callGraph;
+
+    protected G pointerFlowGraph;
+
+    private final StmtProcessor stmtProcessor = new StmtProcessor();
+
+    /**
+     * Map from receiver class to subsignature to the callee of virtual
+     * and interface calls. Objects of a class reach many call sites,
+     * so each (class, subsignature) is dispatched once.
+     */
+    private final Map<JClass, Map<Subsignature, JMethod>> dispatchCache =
+            Maps.newConcurrentMap();
+
+    protected AbstractSolver(IndexedHeapModel heapModel) {
+        this.heapModel = heapModel;
+    }
+
+    /**
+     * Processes new reachable method.
+     */
+    protected void addReachable(JMethod method) {
+        if (addReachableMethod(method)) {
+            getIR(method).getStmts().forEach(s -> s.accept(stmtProcessor));
+        }
+    }
+
+    /**
+     * Marks given method as reachable. The subclasses may prepare
+     * the method for processing its statements here.
+     *
+     * @return true if the method was not reachable before, otherwise false.
+     */
+    protected abstract boolean addReachableMethod(JMethod method);
+
+    /**
+     * Adds an edge "source -> target" to the PFG, and sends the points-to
+     * set of source to target if the edge is new.
+     */
+    protected abstract void addPFGEdge(Pointer source, Pointer target);
+
+    /**
+     * Adds the objects in given points-to set to the points-to set
+     * of given pointer.
+     */
+    protected abstract void addPointsTo(Pointer pointer, PointsToSet pts);
+
+    /**
+     * Adds an edge to the call graph.
+     *
+     * @return true if the edge was not in the call graph, otherwise false.
+     */
+    protected abstract boolean addCallEdge(Edge<Invoke, JMethod> edge);
+
+    /**
+     * Processes statements in new reachable methods.
+     */
+    private class StmtProcessor implements StmtVisitor<Void> {
+        @Override
+        public Void visit(New stmt) {
+            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
+            addPointsTo(x, new PointsToSet(heapModel, heapModel.getObj(stmt)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
+            Pointer y = pointerFlowGraph.getVarPtr(stmt.getRValue());
+            addPFGEdge(y, x);
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (!stmt.isStatic()) return null;
+            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
+            Pointer y = pointerFlowGraph.getStaticField(resolve(stmt.getFieldRef()));
+            addPFGEdge(y, x);
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (!stmt.isStatic()) return null;
+            Pointer x = pointerFlowGraph.getStaticField(resolve(stmt.getFieldRef()));
+            Pointer y = pointerFlowGraph.getVarPtr(stmt.getRValue());
+            addPFGEdge(y, x);
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (!stmt.isStatic()) return null;
+            JMethod m = resolve(stmt.getMethodRef());
+            processCallEdge(new Edge<>(CallKind.STATIC, stmt, m));
+            return null;
+        }
+    }
+
+    /**
+     * Processes the statements on given variable for the objects
+     * newly pointed to by the variable.
+     */
+    protected void processNewObjects(Var v, PointsToSet objs) {
+        for (Obj o : objs) {
+            for (StoreField sf : v.getStoreFields()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(sf.getRValue()),
+                        pointerFlowGraph.getInstanceField(o, resolve(sf.getFieldRef())));
+            }
+            for (LoadField lf : v.getLoadFields()) {
+                addPFGEdge(pointerFlowGraph.getInstanceField(o, resolve(lf.getFieldRef())),
+                        pointerFlowGraph.getVarPtr(lf.getLValue()));
+            }
+            for (StoreArray sa : v.getStoreArrays()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(sa.getRValue()),
+                        pointerFlowGraph.getArrayIndex(o));
+            }
+            for (LoadArray la : v.getLoadArrays()) {
+                addPFGEdge(pointerFlowGraph.getArrayIndex(o),
+                        pointerFlowGraph.getVarPtr(la.getLValue()));
+            }
+            processCall(v, o);
+        }
+    }
+
+    /**
+     * Processes instance calls when points-to set of the receiver variable changes.
+     *
+     * @param var  the variable that holds receiver objects
+     * @param recv a new discovered object pointed by the variable.
+     */
+    private void processCall(Var var, Obj recv) {
+        for (Invoke cs : var.getInvokes()) {
+            JMethod callee = resolveCallee(recv, cs);
+            addPointsTo(pointerFlowGraph.getVarPtr(getIR(callee).getThis()),
+                    new PointsToSet(heapModel, recv));
+            processCallEdge(new Edge<>(CallGraphs.getCallKind(cs), cs, callee));
+        }
+    }
+
+    /**
+     * Processes a call edge. If the edge is new, makes the callee reachable
+     * and connects the arguments and return values.
+     */
+    private void processCallEdge(Edge<Invoke, JMethod> edge) {
+        if (!addCallEdge(edge)) {
+            return;
+        }
+        Invoke callSite = edge.getCallSite();
+        JMethod callee = edge.getCallee();
+        addReachable(callee);
+        IR ir = getIR(callee);
+        for (int i = 0; i < callee.getParamCount(); ++i) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(callSite.getInvokeExp().getArg(i)),
+                    pointerFlowGraph.getVarPtr(ir.getParam(i)));
+        }
+        Var res = callSite.getResult();
+        if (res != null) {
+            for (Var retVar : ir.getReturnVars()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(retVar),
+                        pointerFlowGraph.getVarPtr(res));
+            }
+        }
+    }
+
+    protected IR getIR(JMethod method) {
+        return method.getIR();
+    }
+
+    protected JField resolve(FieldRef fieldRef) {
+        return fieldRef.resolve();
+    }
+
+    protected JMethod resolve(MethodRef methodRef) {
+        return methodRef.resolve();
+    }
+
+    /**
+     * Resolves the callee of a call site with the receiver object.
+     */
+    private JMethod resolveCallee(Obj recv, Invoke callSite) {
+        if (!callSite.isVirtual() && !callSite.isInterface()) {
+            // the callee of a special call does not depend on the receiver
+            return resolve(callSite.getMethodRef());
+        }
+        Type type = recv.getType();
+        if (!(type instanceof ClassType classType)) {
+            return dispatch(type, callSite);
+        }
+        Map<Subsignature, JMethod> callees = dispatchCache.computeIfAbsent(
+                classType.getJClass(), c -> Maps.newConcurrentMap());
+        Subsignature subsig = callSite.getMethodRef().getSubsignature();
+        JMethod callee = callees.get(subsig);
+        if (callee == null) {
+            callee = dispatch(type, callSite);
+            if (callee != null) {
+                callees.put(subsig, callee);
+            }
+        }
+        return callee;
+    }
+
+    /**
+     * Dispatches a virtual or interface call on the receiver type
+     * by the class hierarchy.
+     */
+    protected JMethod dispatch(Type type, Invoke callSite) {
+        return CallGraphs.resolveCallee(type, callSite);
+    }
+
+    CIPTAResult getResult() {
+        return new CIPTAResult(pointerFlowGraph, callGraph);
+    }
+}
@@ -25,7 +25,7 @@ package pascal.taie.analysis.pta.ci;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
-import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
 import pascal.taie.config.AnalysisConfig;
 
 /**
@@ -39,12 +39,25 @@ public class CIPTA extends ProgramAnalysis {
         super(config);
     }
 
+    /**
+     * Solves the analysis by {@link ParallelSolver} if option "parallelism"
+     * is greater than 1, otherwise by {@link Solver}.
+     */
     @Override
     public PointerAnalysisResult analyze() {
-        HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
-        solver.solve();
-        CIPTAResult result = solver.getResult();
+        IndexedHeapModel heapModel = new IndexedHeapModel(
+                new AllocationSiteBasedModel(getOptions()));
+        CIPTAResult result;
+        Object parallelism = getOptions().get("parallelism");
+        if (parallelism != null && (Integer) parallelism > 1) {
+            ParallelSolver solver = new ParallelSolver(heapModel, (Integer) parallelism);
+            solver.solve();
+            result = solver.getResult();
+        } else {
+            Solver solver = new Solver(getOptions(), heapModel);
+            solver.solve();
+            result = solver.getResult();
+        }
         new ResultProcessor(getOptions()).process(result);
         return result;
     }
@@ -45,7 +45,7 @@ class CIPTAResult implements PointerAnalysisResult {
 
     private static final Logger logger = LogManager.getLogger(CIPTAResult.class);
 
-    private final PointerFlowGraph pointerFlowGraph;
+    private final AbstractPointerFlowGraph pointerFlowGraph;
 
     private final CallGraph<Invoke, JMethod> callGraph;
 
@@ -56,7 +56,7 @@ class CIPTAResult implements PointerAnalysisResult {
 
     private Set<Obj> objects;
 
-    CIPTAResult(PointerFlowGraph pointerFlowGraph,
+    CIPTAResult(AbstractPointerFlowGraph pointerFlowGraph,
                 CallGraph<Invoke, JMethod> callGraph) {
         this.pointerFlowGraph = pointerFlowGraph;
         this.callGraph = callGraph;
@@ -120,7 +120,7 @@ class CIPTAResult implements PointerAnalysisResult {
         return callGraph;
     }
 
-    PointerFlowGraph getPointerFlowGraph() {
+    AbstractPointerFlowGraph getPointerFlowGraph() {
         return pointerFlowGraph;
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pointer flow graph whose pointers and edges can be added by multiple
+ * threads. Pointers of this PFG are never merged.
+ */
+class ConcurrentPointerFlowGraph extends AbstractPointerFlowGraph {
+
+    /**
+     * @param heapModel the heap model which indexes the objects
+     *                  in points-to sets of the pointers
+     */
+    ConcurrentPointerFlowGraph(IndexedHeapModel heapModel) {
+        super(heapModel);
+    }
+
+    @Override
+    protected <K, V> Map<K, V> newMap() {
+        return Maps.newConcurrentMap();
+    }
+
+    @Override
+    protected <E> Set<E> newSet() {
+        return Sets.newConcurrentSet();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel solver of context-insensitive pointer analysis.
+ * <p>
+ * Each pointer has a worker which owns its points-to set, i.e., only the
+ * worker adds objects to the set, and at most one task of the worker runs
+ * at a time. Objects flowing to a pointer are sent to a lock-free inbox of
+ * its worker, and the workers with pending objects are scheduled on
+ * a work-stealing pool. A worker unions the received objects into the
+ * points-to set by atomic bit operations, sends the new objects to the
+ * successors of the pointer, and processes the statements on the pointer
+ * if it is a variable. PFG edges, reachable methods and call edges are
+ * added to concurrent sets, so each of them is processed by exactly one
+ * thread.
+ * <p>
+ * When an edge is added to the PFG, a snapshot of the points-to set of its
+ * source is sent to its target. As a worker updates the points-to set
+ * before reading the successors, and an edge is added before the snapshot
+ * is taken, every object of the source reaches the target, either by the
+ * snapshot or by the worker. Hence this solver reaches the same fixed
+ * point as {@link Solver}.
+ * <p>
+ * The front end (building IR, resolving fields and methods, and dispatching
+ * calls) is not thread-safe, so it is serialized by a lock, and its results
+ * are cached. Pointers are not merged by this solver.
+ */
+class ParallelSolver extends AbstractSolver<ConcurrentPointerFlowGraph> {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    private final int parallelism;
+
+    private final Set<JMethod> reachableMethods = Sets.newConcurrentSet();
+
+    private final Set<Edge<Invoke, JMethod>> callEdges = Sets.newConcurrentSet();
+
+    private final Map<Pointer, PointerWorker> workers = Maps.newConcurrentMap();
+
+    /**
+     * Guards the accesses to the front end.
+     */
+    private final Object frontendLock = new Object();
+
+    private final Map<JMethod, IR> irs = Maps.newConcurrentMap();
+
+    private final Map<FieldRef, JField> fields = Maps.newConcurrentMap();
+
+    private final Map<MethodRef, JMethod> methods = Maps.newConcurrentMap();
+
+    private ForkJoinPool pool;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param heapModel   the heap model, which must be thread-safe
+     * @param parallelism number of worker threads
+     */
+    ParallelSolver(IndexedHeapModel heapModel, int parallelism) {
+        super(heapModel);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs pointer analysis algorithm.
+     */
+    void solve() {
+        pointerFlowGraph = new ConcurrentPointerFlowGraph(heapModel);
+        JMethod main = World.get().getMainMethod();
+        pool = new ForkJoinPool(parallelism);
+        try {
+            addReachable(main);
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AnalysisException("Failed to solve pointer analysis",
+                    failure.get());
+        }
+        logger.info("Propagated points-to sets of {} pointers by {} threads",
+                workers.size(), parallelism);
+        callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(main);
+        reachableMethods.forEach(callGraph::addReachableMethod);
+        callEdges.forEach(callGraph::addEdge);
+    }
+
+    @Override
+    protected boolean addReachableMethod(JMethod method) {
+        return reachableMethods.add(method);
+    }
+
+    @Override
+    protected void addPFGEdge(Pointer source, Pointer target) {
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet().snapshot();
+            if (!pts.isEmpty()) {
+                send(target, pts);
+            }
+        }
+    }
+
+    @Override
+    protected void addPointsTo(Pointer pointer, PointsToSet pts) {
+        send(pointer, pts);
+    }
+
+    @Override
+    protected boolean addCallEdge(Edge<Invoke, JMethod> edge) {
+        return callEdges.add(edge);
+    }
+
+    /**
+     * Sends objects to given pointer. This method can be called by any thread.
+     */
+    private void send(Pointer pointer, PointsToSet pts) {
+        workers.computeIfAbsent(pointer, PointerWorker::new).send(pts);
+    }
+
+    @Override
+    protected IR getIR(JMethod method) {
+        IR ir = irs.get(method);
+        if (ir == null) {
+            synchronized (frontendLock) {
+                ir = method.getIR();
+            }
+            irs.put(method, ir);
+        }
+        return ir;
+    }
+
+    @Override
+    protected JField resolve(FieldRef fieldRef) {
+        JField field = fields.get(fieldRef);
+        if (field == null) {
+            synchronized (frontendLock) {
+                field = fieldRef.resolve();
+            }
+            fields.put(fieldRef, field);
+        }
+        return field;
+    }
+
+    @Override
+    protected JMethod resolve(MethodRef methodRef) {
+        JMethod method = methods.get(methodRef);
+        if (method == null) {
+            synchronized (frontendLock) {
+                method = methodRef.resolve();
+            }
+            methods.put(methodRef, method);
+        }
+        return method;
+    }
+
+    @Override
+    protected JMethod dispatch(Type type, Invoke callSite) {
+        synchronized (frontendLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+    }
+
+    /**
+     * Propagates the objects sent to a pointer.
+     */
+    private class PointerWorker {
+
+        private final Pointer pointer;
+
+        private final Queue<PointsToSet> inbox = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private PointerWorker(Pointer pointer) {
+            this.pointer = pointer;
+        }
+
+        private void send(PointsToSet pts) {
+            inbox.add(pts);
+            if (scheduled.compareAndSet(false, true)) {
+                pool.execute(this::run);
+            }
+        }
+
+        private void run() {
+            try {
+                do {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    PointsToSet delta = new PointsToSet(heapModel);
+                    PointsToSet pts;
+                    while ((pts = inbox.poll()) != null) {
+                        delta.addAll(pointer.getPointsToSet().addAllDiffAtomic(pts));
+                    }
+                    if (!delta.isEmpty()) {
+                        // the points-to set must be updated before
+                        // the successors are read, see addPFGEdge()
+                        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                            ParallelSolver.this.send(succ, delta);
+                        }
+                        if (pointer instanceof VarPtr vp) {
+                            processNewObjects(vp.getVar(), delta);
+                        }
+                    }
+                    scheduled.set(false);
+                    // objects may arrive after the inbox was drained but
+                    // before this worker was unscheduled
+                } while (!inbox.isEmpty() && scheduled.compareAndSet(false, true));
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+}
@@ -22,119 +22,172 @@
 
 package pascal.taie.analysis.pta.ci;
 
-import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.ir.exp.Var;
-import pascal.taie.language.classes.JField;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
 
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
- * Represents pointer flow graph in pointer analysis.
+ * Pointer flow graph whose pointers can be merged.
+ * <p>
+ * Pointers on a cycle of the PFG always have the same points-to set, thus
+ * they can be merged into a representative by {@link #merge(Pointer, Pointer)}.
+ * The merged pointers share the points-to set and the successors of
+ * their representative.
  */
-class PointerFlowGraph {
+class PointerFlowGraph extends AbstractPointerFlowGraph {
 
     /**
-     * Set of all pointer in this PFG.
+     * Map from a merged pointer to its representative.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
 
     /**
-     * Map from Variable to Var node.
+     * Map from a representative to the pointers merged into it
+     * (including itself).
      */
-    private final Map<Var, VarPtr> varPtrs = Maps.newMap();
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
 
     /**
-     * Map from JField to StaticField node.
+     * @param heapModel the heap model which indexes the objects
+     *                  in points-to sets of the pointers
      */
-    private final Map<JField, StaticField> staticFields = Maps.newMap();
-
-    /**
-     * Map from (Obj, Field) to InstanceField node.
-     */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    PointerFlowGraph(IndexedHeapModel heapModel) {
+        super(heapModel);
+    }
 
-    /**
-     * Map from Obj (array) to ArrayIndex node.
-     */
-    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
+    @Override
+    protected <K, V> Map<K, V> newMap() {
+        return Maps.newMap();
+    }
 
-    /**
-     * Map from a pointer (node) to its successors in PFG.
-     */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    @Override
+    protected <E> Set<E> newSet() {
+        return Sets.newSet();
+    }
 
-    /**
-     * Returns all pointers in this PFG.
-     */
-    Set<Pointer> getPointers() {
-        return Collections.unmodifiableSet(pointers);
+    @Override
+    boolean addEdge(Pointer source, Pointer target) {
+        return super.addEdge(getRepresentative(source), getRepresentative(target));
     }
 
     /**
-     * @return the corresponding Var node for the given variable.
+     * @return successors of given pointer in the PFG. The successors may
+     * contain pointers that have been merged after the edges were added.
      */
-    VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
-            VarPtr varPtr = new VarPtr(v);
-            pointers.add(varPtr);
-            return varPtr;
-        });
+    @Override
+    Set<Pointer> getSuccsOf(Pointer pointer) {
+        return super.getSuccsOf(getRepresentative(pointer));
     }
 
     /**
-     * @return the corresponding StaticField node for the given static field.
+     * @return the representative of given pointer, or the pointer itself
+     * if it has not been merged.
      */
-    StaticField getStaticField(JField field) {
-        return staticFields.computeIfAbsent(field, f -> {
-            StaticField staticField = new StaticField(f);
-            pointers.add(staticField);
-            return staticField;
-        });
+    Pointer getRepresentative(Pointer pointer) {
+        return reps.getOrDefault(pointer, pointer);
     }
 
     /**
-     * @return the corresponding InstanceField node for the given object
-     * and instance field.
+     * @return the pointers merged into given representative.
      */
-    InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+    Set<Pointer> getMembersOf(Pointer rep) {
+        return members.containsKey(rep) ? members.get(rep) : Set.of(rep);
     }
 
     /**
-     * @return the corresponding ArrayIndex node for the given array object.
+     * Merges a representative into another one. After merging, the pointers
+     * represented by {@code pointer} share the points-to set and
+     * the successors of {@code rep}.
      */
-    ArrayIndex getArrayIndex(Obj array) {
-        return arrayIndexes.computeIfAbsent(array, a -> {
-            ArrayIndex arrayIndex = new ArrayIndex(a);
-            pointers.add(arrayIndex);
-            return arrayIndex;
-        });
+    void merge(Pointer pointer, Pointer rep) {
+        List<Pointer> merged = List.copyOf(getMembersOf(pointer));
+        for (Pointer p : merged) {
+            reps.put(p, rep);
+            p.setPointsToSet(rep.getPointsToSet());
+        }
+        if (!members.containsKey(rep)) {
+            members.put(rep, rep);
+        }
+        members.putAll(rep, merged);
+        members.removeAll(pointer);
+        Set<Pointer> succs = Sets.newSet();
+        successors.get(rep).forEach(s -> succs.add(getRepresentative(s)));
+        successors.get(pointer).forEach(s -> succs.add(getRepresentative(s)));
+        succs.remove(rep);
+        successors.removeAll(pointer);
+        successors.removeAll(rep);
+        successors.putAll(rep, succs);
     }
 
     /**
-     * Adds an edge (source -> target) to this PFG.
-     *
-     * @return true if this PFG changed as a result of the call,
-     * otherwise false.
+     * Finds the strongly connected components of this PFG which are
+     * reachable from given pointer and consist of more than one
+     * representative, by an iterative Tarjan's algorithm.
      */
-    boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+    List<List<Pointer>> findCycles(Pointer start) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lows = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Frame> frames = new ArrayDeque<>();
+        List<List<Pointer>> cycles = new ArrayList<>();
+        Pointer root = getRepresentative(start);
+        indexes.put(root, 0);
+        lows.put(root, 0);
+        stack.push(root);
+        onStack.add(root);
+        frames.push(new Frame(root, successors.get(root).iterator()));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            Pointer node = frame.pointer();
+            if (frame.succs().hasNext()) {
+                Pointer succ = getRepresentative(frame.succs().next());
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lows.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    frames.push(new Frame(succ, successors.get(succ).iterator()));
+                } else if (onStack.contains(succ)) {
+                    lows.put(node, Math.min(lows.get(node), indexes.get(succ)));
+                }
+            } else {
+                frames.pop();
+                if (!frames.isEmpty()) {
+                    Pointer parent = frames.peek().pointer();
+                    lows.put(parent, Math.min(lows.get(parent), lows.get(node)));
+                }
+                if (lows.get(node).equals(indexes.get(node))) {
+                    List<Pointer> scc = new ArrayList<>();
+                    Pointer p;
+                    do {
+                        p = stack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (scc.size() > 1) {
+                        cycles.add(scc);
+                    }
+                }
+            }
+        }
+        return cycles;
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * A pointer being visited by {@link #findCycles(Pointer)}
+     * and its remaining successors.
      */
-    Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+    private record Frame(Pointer pointer, Iterator<Pointer> succs) {
     }
 }
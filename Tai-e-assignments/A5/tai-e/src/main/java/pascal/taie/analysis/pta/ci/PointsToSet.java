@@ -22,31 +22,62 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
+import pascal.taie.util.AnalysisException;
 
-import java.util.Collections;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents of points-to sets.
+ * <p>
+ * The set is a bit set over the indexes of objects given by
+ * {@link IndexedHeapModel}, so that propagation between points-to sets
+ * is performed word by word, see {@link #addAllDiff(PointsToSet)}.
+ * <p>
+ * For parallel solving, {@link #addAllDiffAtomic(PointsToSet)} and
+ * {@link #snapshot()} allow one thread to add objects to the set while
+ * other threads read it. Other methods are not thread-safe.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private static final long[] EMPTY = {};
+
+    private static final VarHandle WORDS =
+            MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final IndexedHeapModel heapModel;
+
+    /**
+     * The bits of this set. When the set grows, the bits are copied to
+     * a larger array, which is then published by a volatile write.
+     */
+    private volatile long[] words = EMPTY;
+
+    private int size;
 
     /**
      * Constructs an empty points-to set.
      */
-    PointsToSet() {
+    PointsToSet(IndexedHeapModel heapModel) {
+        this.heapModel = heapModel;
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
-    PointsToSet(Obj obj) {
+    PointsToSet(IndexedHeapModel heapModel, Obj obj) {
+        this(heapModel);
         addObject(obj);
     }
 
@@ -57,51 +88,265 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        int index = getIndex(obj);
+        int i = index >>> 6;
+        if (i >= words.length) {
+            words = Arrays.copyOf(words, Math.max(i + 1, words.length * 2));
+        }
+        long bit = 1L << index;
+        if ((words[i] & bit) != 0) {
+            return false;
+        }
+        words[i] |= bit;
+        ++size;
+        return true;
+    }
+
+    /**
+     * Adds all objects of given set to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet other) {
+        long[] src = other.words;
+        if (src.length > words.length) {
+            words = Arrays.copyOf(words, src.length);
+        }
+        int oldSize = size;
+        for (int i = 0; i < src.length; ++i) {
+            long bits = src[i] & ~words[i];
+            if (bits != 0) {
+                words[i] |= bits;
+                size += Long.bitCount(bits);
+            }
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * @return a new points-to set containing the objects of this set.
+     */
+    PointsToSet copy() {
+        PointsToSet copy = new PointsToSet(heapModel);
+        copy.words = words.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Adds all objects of given set to this set.
+     *
+     * @return the objects that are in given set but were not in this set,
+     * i.e., the difference set computed before the addition.
+     */
+    PointsToSet addAllDiff(PointsToSet other) {
+        long[] src = other.words;
+        if (src.length > words.length) {
+            words = Arrays.copyOf(words, src.length);
+        }
+        PointsToSet diff = new PointsToSet(heapModel);
+        long[] diffWords = null;
+        for (int i = 0; i < src.length; ++i) {
+            long bits = src[i] & ~words[i];
+            if (bits != 0) {
+                if (diffWords == null) {
+                    diffWords = new long[src.length];
+                }
+                diffWords[i] = bits;
+                words[i] |= bits;
+                diff.size += Long.bitCount(bits);
+            }
+        }
+        if (diffWords != null) {
+            diff.words = diffWords;
+            size += diff.size;
+        }
+        return diff;
+    }
+
+    /**
+     * Adds all objects of given set to this set, as
+     * {@link #addAllDiff(PointsToSet)}, but the bits are updated atomically,
+     * so that they are visible to concurrent {@link #snapshot()}.
+     * At most one thread may call this method on a set at a time.
+     *
+     * @return the objects that are in given set but were not in this set.
+     */
+    PointsToSet addAllDiffAtomic(PointsToSet other) {
+        long[] src = other.words;
+        long[] dst = words;
+        boolean grown = src.length > dst.length;
+        if (grown) {
+            dst = Arrays.copyOf(dst, Math.max(src.length, dst.length * 2));
+        }
+        PointsToSet diff = new PointsToSet(heapModel);
+        long[] diffWords = null;
+        for (int i = 0; i < src.length; ++i) {
+            long bits = src[i] & ~(long) WORDS.getVolatile(dst, i);
+            if (bits != 0) {
+                if (diffWords == null) {
+                    diffWords = new long[src.length];
+                }
+                diffWords[i] = bits;
+                WORDS.getAndBitwiseOr(dst, i, bits);
+                diff.size += Long.bitCount(bits);
+            }
+        }
+        if (grown) {
+            words = dst;
+        }
+        if (diffWords != null) {
+            diff.words = diffWords;
+            size += diff.size;
+        }
+        return diff;
+    }
+
+    /**
+     * Copies this set. Unlike {@link #copy()}, this method can be called
+     * while another thread is adding objects by
+     * {@link #addAllDiffAtomic(PointsToSet)}; the copy contains at least
+     * the objects added before the call.
+     *
+     * @return a new points-to set containing the objects of this set.
+     */
+    PointsToSet snapshot() {
+        long[] src = words;
+        long[] copyWords = new long[src.length];
+        int copySize = 0;
+        for (int i = 0; i < src.length; ++i) {
+            copyWords[i] = (long) WORDS.getVolatile(src, i);
+            copySize += Long.bitCount(copyWords[i]);
+        }
+        PointsToSet copy = new PointsToSet(heapModel);
+        copy.words = copyWords;
+        copy.size = copySize;
+        return copy;
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        int index = heapModel.getIndex(obj);
+        if (index < 0) {
+            return false;
+        }
+        int i = index >>> 6;
+        return i < words.length && (words[i] & (1L << index)) != 0;
+    }
+
+    private int getIndex(Obj obj) {
+        int index = heapModel.getIndex(obj);
+        if (index < 0) {
+            throw new AnalysisException(obj + " is not indexed by heap model");
+        }
+        return index;
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return size == 0;
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return size;
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size,
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        return new Iterator<>() {
+
+            private int i = 0;
+
+            private long bits = words.length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0 && i + 1 < words.length) {
+                    bits = words[++i];
+                }
+                return bits != 0;
+            }
+
+            @Override
+            public Obj next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int index = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return heapModel.getObject(index);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PointsToSet other) || size != other.size) {
+            return false;
+        }
+        int n = Math.max(words.length, other.words.length);
+        for (int i = 0; i < n; ++i) {
+            long w1 = i < words.length ? words[i] : 0;
+            long w2 = i < other.words.length ? other.words[i] : 0;
+            if (w1 != w2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < words.length; ++i) {
+            hash += Long.hashCode(words[i]) * (i + 1);
+        }
+        return hash;
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        return getObjects().toString();
     }
 }
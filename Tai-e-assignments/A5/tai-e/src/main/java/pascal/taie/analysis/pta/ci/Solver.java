@@ -25,42 +25,56 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.graph.callgraph.CallGraphs;
-import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
-import pascal.taie.analysis.pta.core.heap.HeapModel;
-import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.analysis.pta.core.heap.IndexedHeapModel;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.proginfo.MethodRef;
-import pascal.taie.ir.stmt.*;
+import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchy;
-import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.AnalysisException;
-import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 
+import java.util.ArrayList;
 import java.util.List;
 
-class Solver {
+class Solver extends AbstractSolver<PointerFlowGraph> {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
-    private final HeapModel heapModel;
-
-    private DefaultCallGraph callGraph;
+    /**
+     * Whether the pointers on PFG cycles are collapsed.
+     */
+    private final boolean collapseCycles;
 
-    private PointerFlowGraph pointerFlowGraph;
+    /**
+     * Whether pointer-equivalent variables are merged before solving.
+     */
+    private final boolean mergeEquivalentVars;
 
     private WorkList workList;
 
-    private StmtProcessor stmtProcessor;
-
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
-        this.heapModel = heapModel;
+    /**
+     * PFG edges which have been checked for cycles.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * Pointers from which cycle detection will be performed.
+     */
+    private final List<Pointer> cycleCandidates = new ArrayList<>();
+
+    private int collapsedPointers = 0;
+
+    private int mergedVars = 0;
+
+    Solver(AnalysisOptions options, IndexedHeapModel heapModel) {
+        super(heapModel);
+        this.collapseCycles = options.getBooleanOrDefault("collapse-cycles", true);
+        this.mergeEquivalentVars = options.getBooleanOrDefault("merge-equivalent-vars", true);
     }
 
     /**
@@ -75,11 +89,11 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        pointerFlowGraph = new PointerFlowGraph(heapModel);
+        workList = new WorkList(pointerFlowGraph);
         callGraph = new DefaultCallGraph();
-        stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
+        checkedEdges = Maps.newMultiMap();
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -87,79 +101,26 @@ class Solver {
     }
 
     /**
-     * Processes new reachable method.
-     */
-    private void addReachable(JMethod method) {
-        if (callGraph.addReachableMethod(method)) {
-            method.getIR().getStmts().forEach(s -> s.accept(stmtProcessor));
-        }
-    }
-
-    /**
-     * Processes statements in new reachable methods.
+     * Marks given method as reachable, and merges the pointer-equivalent
+     * variables of the method before its statements are processed.
      */
-    private class StmtProcessor implements StmtVisitor<Void> {
-        @Override
-        public Void visit(New stmt) {
-            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
-            PointsToSet t = new PointsToSet(heapModel.getObj(stmt));
-            workList.addEntry(x, t);
-            return null;
-        }
-
-        @Override
-        public Void visit(Copy stmt) {
-            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
-            Pointer y = pointerFlowGraph.getVarPtr(stmt.getRValue());
-            addPFGEdge(y, x);
-            return null;
-        }
-
-        @Override
-        public Void visit(LoadField stmt) {
-            if (!stmt.isStatic()) return null;
-            Pointer x = pointerFlowGraph.getVarPtr(stmt.getLValue());
-            Pointer y = pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve());
-            addPFGEdge(y, x);
-            return null;
+    @Override
+    protected boolean addReachableMethod(JMethod method) {
+        if (!callGraph.addReachableMethod(method)) {
+            return false;
         }
-
-        @Override
-        public Void visit(StoreField stmt) {
-            if (!stmt.isStatic()) return null;
-            Pointer x = pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve());
-            Pointer y = pointerFlowGraph.getVarPtr(stmt.getRValue());
-            addPFGEdge(y, x);
-            return null;
-        }
-
-        @Override
-        public Void visit(Invoke stmt) {
-            if (!stmt.isStatic()) return null;
-
-            JMethod m = stmt.getMethodRef().resolve();
-            if (callGraph.addEdge(new Edge<>(CallKind.STATIC, stmt, m))) {
-                addReachable(m);
-
-                for (int i = 0; i < stmt.getInvokeExp().getArgCount(); ++i) {
-                    addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getInvokeExp().getArg(i)), pointerFlowGraph.getVarPtr(m.getIR().getParam(i)));
-                }
-
-                Var res = stmt.getResult();
-
-                if (res == null) return null;
-                for (Var retvar : m.getIR().getReturnVars()) {
-                    addPFGEdge(pointerFlowGraph.getVarPtr(retvar), pointerFlowGraph.getVarPtr(res));
-                }
+        if (mergeEquivalentVars) {
+            for (List<Var> vars : ValueNumbering.getEquivalentVars(getIR(method))) {
+                mergedVars += merge(vars.stream()
+                        .<Pointer>map(pointerFlowGraph::getVarPtr)
+                        .toList());
             }
-            return null;
         }
+        return true;
     }
 
-    /**
-     * Adds an edge "source -> target" to the PFG.
-     */
-    private void addPFGEdge(Pointer source, Pointer target) {
+    @Override
+    protected void addPFGEdge(Pointer source, Pointer target) {
         if (pointerFlowGraph.addEdge(source, target)) {
             PointsToSet pts = source.getPointsToSet();
             if (!pts.isEmpty()) {
@@ -168,6 +129,16 @@ class Solver {
         }
     }
 
+    @Override
+    protected void addPointsTo(Pointer pointer, PointsToSet pts) {
+        workList.addEntry(pointer, pts);
+    }
+
+    @Override
+    protected boolean addCallEdge(Edge<Invoke, JMethod> edge) {
+        return callGraph.addEdge(edge);
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
@@ -175,84 +146,96 @@ class Solver {
         while (!workList.isEmpty()) {
             WorkList.Entry e = workList.pollEntry();
             PointsToSet pts = e.pointsToSet();
-            Pointer ptn = e.pointer();
+            // the pointer may have been merged after it was added
+            Pointer ptn = pointerFlowGraph.getRepresentative(e.pointer());
             PointsToSet delta = propagate(ptn, pts);
-            if (ptn instanceof VarPtr vp) {
-                Var v = vp.getVar();
-                for (Obj o : delta) {
-                    for (StoreField sf : v.getStoreFields()) {
-                        addPFGEdge(pointerFlowGraph.getVarPtr(sf.getRValue()), pointerFlowGraph.getInstanceField(o, sf.getFieldRef().resolve()));
+            if (!delta.isEmpty()) {
+                for (Pointer p : pointerFlowGraph.getMembersOf(ptn)) {
+                    if (p instanceof VarPtr vp) {
+                        processNewObjects(vp.getVar(), delta);
                     }
-                    for (LoadField lf : v.getLoadFields()) {
-                        addPFGEdge(pointerFlowGraph.getInstanceField(o, lf.getFieldRef().resolve()), pointerFlowGraph.getVarPtr(lf.getLValue()));
-                    }
-
-                    for (StoreArray sa : v.getStoreArrays()) {
-                        addPFGEdge(pointerFlowGraph.getVarPtr(sa.getRValue()), pointerFlowGraph.getArrayIndex(o));
-                    }
-                    for (LoadArray la : v.getLoadArrays()) {
-                        addPFGEdge(pointerFlowGraph.getArrayIndex(o), pointerFlowGraph.getVarPtr(la.getLValue()));
-                    }
-                    processCall(v, o);
                 }
             }
+            collapseCycles();
+        }
+        logger.info("Merged {} pointer-equivalent variables before solving",
+                mergedVars);
+        if (collapsedPointers > 0) {
+            logger.info("Collapsed {} pointers on PFG cycles", collapsedPointers);
         }
     }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * <p>
+     * This also performs lazy cycle detection (Hardekopf and Lin, PLDI'07):
+     * if a successor already has the same points-to set as pointer,
+     * the edge is likely on a cycle, and the successor becomes
+     * a candidate of cycle detection. Each edge is checked only once.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        PointsToSet diff = new PointsToSet();
-        pointsToSet.objects().filter(obj -> !pointer.getPointsToSet().contains(obj)).forEach(diff::addObject);
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet diff = pts.addAllDiff(pointsToSet);
         if (!diff.isEmpty()) {
-            diff.forEach(o -> pointer.getPointsToSet().addObject(o));
-            pointerFlowGraph.getSuccsOf(pointer).forEach(succ -> workList.addEntry(succ, diff));
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+                PointsToSet succPts = succ.getPointsToSet();
+                if (collapseCycles && succPts != pts && succPts.equals(pts)
+                        && checkedEdges.put(pointer, succ)) {
+                    cycleCandidates.add(succ);
+                }
+            }
         }
         return diff;
     }
 
     /**
-     * Processes instance calls when points-to set of the receiver variable changes.
-     *
-     * @param var  the variable that holds receiver objects
-     * @param recv a new discovered object pointed by the variable.
+     * Detects the PFG cycles from the candidates and collapses them.
      */
-    private void processCall(Var var, Obj recv) {
-        for (Invoke cs : var.getInvokes()) {
-            JMethod callee = resolveCallee(recv, cs);
-            workList.addEntry(pointerFlowGraph.getVarPtr(callee.getIR().getThis()), new PointsToSet(recv));
-            if (callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(cs), cs, callee))) {
-                addReachable(callee);
-                for (int i = 0; i < callee.getParamCount(); ++i) {
-                    addPFGEdge(pointerFlowGraph.getVarPtr(cs.getInvokeExp().getArg(i)), pointerFlowGraph.getVarPtr(callee.getIR().getParam(i)));
-                }
-
-                Var res = cs.getResult();
-
-                if (res == null) continue;
-                for (Var retvar : callee.getIR().getReturnVars()) {
-                    addPFGEdge(pointerFlowGraph.getVarPtr(retvar), pointerFlowGraph.getVarPtr(res));
-                }
+    private void collapseCycles() {
+        for (Pointer candidate : cycleCandidates) {
+            for (List<Pointer> cycle : pointerFlowGraph.findCycles(candidate)) {
+                collapsedPointers += merge(cycle);
             }
         }
+        cycleCandidates.clear();
     }
 
     /**
-     * Resolves the callee of a call site with the receiver object.
+     * Merges representatives which always have the same points-to set,
+     * e.g., the pointers of a PFG cycle, into one representative.
+     * Before merging, the objects that are known by only one side are
+     * sent to the other side, i.e., the successors and the variables
+     * of the merged pointers.
      *
-     * @param recv     the receiver object of the method call. If the callSite
-     *                 is static, this parameter is ignored (i.e., can be null).
-     * @param callSite the call site to be resolved.
-     * @return the resolved callee.
+     * @return the number of merged pointers.
      */
-    private JMethod resolveCallee(Obj recv, Invoke callSite) {
-        Type type = recv != null ? recv.getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
-    }
-
-    CIPTAResult getResult() {
-        return new CIPTAResult(pointerFlowGraph, callGraph);
+    private int merge(List<Pointer> pointers) {
+        int merged = 0;
+        Pointer rep = pointers.get(0);
+        for (Pointer pointer : pointers.subList(1, pointers.size())) {
+            PointsToSet pts = pointer.getPointsToSet();
+            PointsToSet missing = new PointsToSet(heapModel);
+            missing.addAllDiff(pts);
+            missing = missing.addAllDiff(rep.getPointsToSet());
+            List<Pointer> members = List.copyOf(pointerFlowGraph.getMembersOf(pointer));
+            if (!missing.isEmpty()) {
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                    workList.addEntry(succ, missing);
+                }
+            }
+            pointerFlowGraph.merge(pointer, rep);
+            if (!pts.isEmpty()) {
+                workList.addEntry(rep, pts);
+            }
+            for (Pointer p : members) {
+                if (p instanceof VarPtr vp) {
+                    processNewObjects(vp.getVar(), missing);
+                }
+            }
+            merged += members.size();
+        }
+        return merged;
     }
 }
@@ -31,7 +31,8 @@ class VarPtr extends Pointer {
 
     private final Var var;
 
-    VarPtr(Var var) {
+    VarPtr(Var var, PointsToSet pointsToSet) {
+        super(pointsToSet);
         this.var = var;
     }
 
@@ -22,21 +22,54 @@
 
 package pascal.taie.analysis.pta.ci;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one entry for each representative in the
+ * pointer flow graph: the points-to sets added for the pointers with the
+ * same representative are merged into one pending set, so that they are
+ * propagated together. Pointers are polled in the order they are added.
+ * As pointers may be merged after they are added, the polled pointer is
+ * not necessarily a representative.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private final PointerFlowGraph pointerFlowGraph;
+
+    private final Map<Pointer, PointsToSet> entries = new LinkedHashMap<>();
+
+    /**
+     * Pointers whose pending sets are copies made by this work list,
+     * and thus can be modified in place. Other pending sets are given
+     * by the callers, and must be copied before merging.
+     */
+    private final Set<Pointer> copied = Sets.newSet();
+
+    WorkList(PointerFlowGraph pointerFlowGraph) {
+        this.pointerFlowGraph = pointerFlowGraph;
+    }
 
     /**
-     * Adds an entry to the work list.
+     * Adds an entry to the work list, which is keyed by the representative
+     * of given pointer.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        pointer = pointerFlowGraph.getRepresentative(pointer);
+        PointsToSet pending = entries.putIfAbsent(pointer, pointsToSet);
+        if (pending != null && pending != pointsToSet) {
+            if (copied.add(pointer)) {
+                pending = pending.copy();
+                entries.put(pointer, pending);
+            }
+            pending.addAll(pointsToSet);
+        }
     }
 
     /**
@@ -44,7 +77,14 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Iterator<Map.Entry<Pointer, PointsToSet>> it = entries.entrySet().iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Map.Entry<Pointer, PointsToSet> e = it.next();
+        it.remove();
+        copied.remove(e.getKey());
+        return new Entry(e.getKey(), e.getValue());
     }
 
     /**
@@ -0,0 +1,106 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.ir.exp.ReferenceLiteral;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Heap model which assigns every object it returns a dense integer index,
+ * starting from 0 in the order the objects are first obtained.
+ * The index allows points-to sets to be represented as bit sets.
+ * <p>
+ * This class is thread-safe: objects are obtained (and indexed) under
+ * a lock, while indexes and objects can be looked up without locking.
+ */
+public class IndexedHeapModel implements HeapModel {
+
+    private final HeapModel heapModel;
+
+    private final Map<Obj, Integer> indexes = Maps.newConcurrentMap();
+
+    /**
+     * Objects by their indexes. The array is replaced by a larger copy
+     * when it is full, and objects are only appended.
+     */
+    private volatile Obj[] objs = new Obj[1024];
+
+    private volatile int size = 0;
+
+    /**
+     * @param heapModel the heap model that actually creates the objects
+     */
+    public IndexedHeapModel(HeapModel heapModel) {
+        this.heapModel = heapModel;
+    }
+
+    @Override
+    public synchronized Obj getObj(New allocSite) {
+        return index(heapModel.getObj(allocSite));
+    }
+
+    @Override
+    public synchronized Obj getConstantObj(ReferenceLiteral value) {
+        return index(heapModel.getConstantObj(value));
+    }
+
+    private Obj index(Obj obj) {
+        if (!indexes.containsKey(obj)) {
+            if (size == objs.length) {
+                objs = Arrays.copyOf(objs, size * 2);
+            }
+            // publish the object before its index
+            objs[size] = obj;
+            indexes.put(obj, size++);
+        }
+        return obj;
+    }
+
+    /**
+     * @return the index of given object, or -1 if the object has not
+     * been obtained from this heap model.
+     */
+    public int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    public Obj getObject(int index) {
+        return objs[index];
+    }
+
+    /**
+     * @return the number of objects indexed so far.
+     */
+    public int getNumberOfObjs() {
+        return size;
+    }
+}
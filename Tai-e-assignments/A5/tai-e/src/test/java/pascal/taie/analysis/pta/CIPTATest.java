@@ -25,6 +25,8 @@ package pascal.taie.analysis.pta;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.util.List;
+
 public class CIPTATest {
 
     static final String DIR = "cipta";
@@ -78,4 +80,42 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testCycle() {
+        Tests.testCIPTA(DIR, "Cycle");
+    }
+
+    /**
+     * Checks that collapsing PFG cycles does not change the results.
+     */
+    @Test
+    public void testWithoutCollapsingCycles() {
+        Tests.testCIPTA(DIR, "StaticCall", "collapse-cycles:false");
+        Tests.testCIPTA(DIR, "Cycle", "collapse-cycles:false");
+    }
+
+    /**
+     * Checks that merging pointer-equivalent variables does not change
+     * the results.
+     */
+    @Test
+    public void testWithoutMergingEquivalentVars() {
+        Tests.testCIPTA(DIR, "Example", "merge-equivalent-vars:false");
+        Tests.testCIPTA(DIR, "Call", "merge-equivalent-vars:false");
+        Tests.testCIPTA(DIR, "InstanceField", "merge-equivalent-vars:false");
+    }
+
+    /**
+     * Checks that the parallel solver gives the same results as
+     * the sequential one.
+     */
+    @Test
+    public void testParallelSolver() {
+        for (String main : List.of("Example", "Array", "Assign", "Assign2",
+                "StoreLoad", "Call", "InstanceField", "StaticField",
+                "StaticCall", "MergeParam", "Cycle")) {
+            Tests.testCIPTA(DIR, main, "parallelism:4");
+        }
+    }
 }
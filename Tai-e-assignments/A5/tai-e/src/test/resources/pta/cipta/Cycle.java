@@ -0,0 +1,22 @@
+public class Cycle {
+
+    public static void main(String[] args) {
+        A x = new A();
+        A y = new A();
+        // x, y and the parameter of id form a cycle across calls
+        for (int i = 0; i < 3; ++i) {
+            x = id(y);
+            y = id(x);
+        }
+        x.f = y;
+        A z = y.f;
+    }
+
+    static A id(A a) {
+        return a;
+    }
+}
+
+class A {
+    A f;
+}
@@ -25,11 +25,23 @@ package pascal.taie.analysis.pta.cs;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * Pointers on a cycle of the PFG always have the same points-to set, thus
+ * they can be merged into a representative by {@link #merge(Pointer, Pointer)}.
+ * The merged pointers share the points-to set and the successors of
+ * their representative.
  */
 class PointerFlowGraph {
 
@@ -38,6 +50,17 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a merged pointer to its representative.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from a representative to the pointers merged into it
+     * (including itself).
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -45,13 +68,119 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        Pointer s = getRepresentative(source);
+        Pointer t = getRepresentative(target);
+        return s != t && successors.put(s, t);
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of given pointer in the PFG. The successors may
+     * contain pointers that have been merged after the edges were added.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(getRepresentative(pointer));
+    }
+
+    /**
+     * @return the representative of given pointer, or the pointer itself
+     * if it has not been merged.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        return reps.getOrDefault(pointer, pointer);
+    }
+
+    /**
+     * @return the pointers merged into given representative.
+     */
+    Set<Pointer> getMembersOf(Pointer rep) {
+        return members.containsKey(rep) ? members.get(rep) : Set.of(rep);
+    }
+
+    /**
+     * Merges a representative into another one. After merging, the pointers
+     * represented by {@code pointer} share the points-to set and
+     * the successors of {@code rep}.
+     */
+    void merge(Pointer pointer, Pointer rep) {
+        List<Pointer> merged = List.copyOf(getMembersOf(pointer));
+        for (Pointer p : merged) {
+            reps.put(p, rep);
+            p.setPointsToSet(rep.getPointsToSet());
+        }
+        if (!members.containsKey(rep)) {
+            members.put(rep, rep);
+        }
+        members.putAll(rep, merged);
+        members.removeAll(pointer);
+        Set<Pointer> succs = Sets.newSet();
+        successors.get(rep).forEach(s -> succs.add(getRepresentative(s)));
+        successors.get(pointer).forEach(s -> succs.add(getRepresentative(s)));
+        succs.remove(rep);
+        successors.removeAll(pointer);
+        successors.removeAll(rep);
+        successors.putAll(rep, succs);
+    }
+
+    /**
+     * Finds the strongly connected components of this PFG which are
+     * reachable from given pointer and consist of more than one
+     * representative, by an iterative Tarjan's algorithm.
+     */
+    List<List<Pointer>> findCycles(Pointer start) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lows = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Frame> frames = new ArrayDeque<>();
+        List<List<Pointer>> cycles = new ArrayList<>();
+        Pointer root = getRepresentative(start);
+        indexes.put(root, 0);
+        lows.put(root, 0);
+        stack.push(root);
+        onStack.add(root);
+        frames.push(new Frame(root, successors.get(root).iterator()));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            Pointer node = frame.pointer();
+            if (frame.succs().hasNext()) {
+                Pointer succ = getRepresentative(frame.succs().next());
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lows.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    frames.push(new Frame(succ, successors.get(succ).iterator()));
+                } else if (onStack.contains(succ)) {
+                    lows.put(node, Math.min(lows.get(node), indexes.get(succ)));
+                }
+            } else {
+                frames.pop();
+                if (!frames.isEmpty()) {
+                    Pointer parent = frames.peek().pointer();
+                    lows.put(parent, Math.min(lows.get(parent), lows.get(node)));
+                }
+                if (lows.get(node).equals(indexes.get(node))) {
+                    List<Pointer> scc = new ArrayList<>();
+                    Pointer p;
+                    do {
+                        p = stack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (scc.size() > 1) {
+                        cycles.add(scc);
+                    }
+                }
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * A pointer being visited by {@link #findCycles(Pointer)}
+     * and its remaining successors.
+     */
+    private record Frame(Pointer pointer, Iterator<Pointer> succs) {
     }
 }
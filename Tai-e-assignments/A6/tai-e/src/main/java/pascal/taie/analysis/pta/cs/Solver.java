@@ -55,8 +55,18 @@ import pascal.taie.ir.stmt.New;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 class Solver {
 
@@ -68,6 +78,16 @@ class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Whether the pointers on PFG cycles are collapsed.
+     */
+    private final boolean collapseCycles;
+
+    /**
+     * Whether pointer-equivalent variables are merged before solving.
+     */
+    private final boolean mergeEquivalentVars;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
@@ -78,11 +98,40 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * PFG edges which have been checked for cycles.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * Pointers from which cycle detection will be performed.
+     */
+    private final List<Pointer> cycleCandidates = new ArrayList<>();
+
+    private int collapsedPointers = 0;
+
+    /**
+     * Pointer-equivalent variables of each reachable method.
+     */
+    private final Map<JMethod, List<List<Var>>> equivalentVars = Maps.newMap();
+
+    private int mergedVars = 0;
+
+    /**
+     * Map from receiver class to subsignature to the callee of virtual
+     * and interface calls. Objects of a class reach many call sites in
+     * many contexts, so each (class, subsignature) is dispatched once.
+     */
+    private final TwoKeyMap<JClass, Subsignature, JMethod> dispatchCache =
+            Maps.newTwoKeyMap();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.collapseCycles = options.getBooleanOrDefault("collapse-cycles", true);
+        this.mergeEquivalentVars = options.getBooleanOrDefault("merge-equivalent-vars", true);
     }
 
     void solve() {
@@ -94,7 +143,8 @@ class Solver {
         csManager = new MapBasedCSManager();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        workList = new WorkList(pointerFlowGraph);
+        checkedEdges = Maps.newMultiMap();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -108,8 +158,18 @@ class Solver {
      */
     private void addReachable(CSMethod csMethod) {
         if (callGraph.addReachableMethod(csMethod)) {
+            JMethod method = csMethod.getMethod();
+            Context context = csMethod.getContext();
+            if (mergeEquivalentVars) {
+                for (List<Var> vars : equivalentVars.computeIfAbsent(method,
+                        m -> ValueNumbering.getEquivalentVars(m.getIR()))) {
+                    mergedVars += merge(vars.stream()
+                            .<Pointer>map(v -> csManager.getCSVar(context, v))
+                            .toList());
+                }
+            }
             StmtProcessor proc = new StmtProcessor(csMethod);
-            csMethod.getMethod().getIR().getStmts().forEach(s -> s.accept(proc));
+            method.getIR().getStmts().forEach(s -> s.accept(proc));
         }
     }
 
@@ -207,44 +267,135 @@ class Solver {
         while (!workList.isEmpty()) {
             WorkList.Entry e = workList.pollEntry();
             PointsToSet pts = e.pointsToSet();
-            Pointer ptn = e.pointer();
+            // the pointer may have been merged after it was added
+            Pointer ptn = pointerFlowGraph.getRepresentative(e.pointer());
             PointsToSet delta = propagate(ptn, pts);
-            if (ptn instanceof CSVar csVar) {
-                Var v = csVar.getVar();
-                for (CSObj o : delta) {
-                    for (StoreField sf : v.getStoreFields()) {
-                        addPFGEdge(csManager.getCSVar(csVar.getContext(), sf.getRValue()), csManager.getInstanceField(o, sf.getFieldRef().resolve()));
-                    }
-                    for (LoadField lf : v.getLoadFields()) {
-                        addPFGEdge(csManager.getInstanceField(o, lf.getFieldRef().resolve()), csManager.getCSVar(csVar.getContext(), lf.getLValue()));
-                    }
-
-                    for (StoreArray sa : v.getStoreArrays()) {
-                        addPFGEdge(csManager.getCSVar(csVar.getContext(), sa.getRValue()), csManager.getArrayIndex(o));
+            if (!delta.isEmpty()) {
+                for (Pointer p : pointerFlowGraph.getMembersOf(ptn)) {
+                    if (p instanceof CSVar csVar) {
+                        processNewObjects(csVar, delta);
                     }
-                    for (LoadArray la : v.getLoadArrays()) {
-                        addPFGEdge(csManager.getArrayIndex(o), csManager.getCSVar(csVar.getContext(), la.getLValue()));
-                    }
-                    processCall(csVar, o);
                 }
             }
+            collapseCycles();
+        }
+        logger.info("Merged {} pointer-equivalent variables before solving",
+                mergedVars);
+        if (collapsedPointers > 0) {
+            logger.info("Collapsed {} pointers on PFG cycles", collapsedPointers);
+        }
+    }
+
+    /**
+     * Processes the statements on given variable for the objects
+     * newly pointed to by the variable.
+     */
+    private void processNewObjects(CSVar csVar, PointsToSet objs) {
+        Var v = csVar.getVar();
+        for (CSObj o : objs) {
+            for (StoreField sf : v.getStoreFields()) {
+                addPFGEdge(csManager.getCSVar(csVar.getContext(), sf.getRValue()), csManager.getInstanceField(o, sf.getFieldRef().resolve()));
+            }
+            for (LoadField lf : v.getLoadFields()) {
+                addPFGEdge(csManager.getInstanceField(o, lf.getFieldRef().resolve()), csManager.getCSVar(csVar.getContext(), lf.getLValue()));
+            }
+
+            for (StoreArray sa : v.getStoreArrays()) {
+                addPFGEdge(csManager.getCSVar(csVar.getContext(), sa.getRValue()), csManager.getArrayIndex(o));
+            }
+            for (LoadArray la : v.getLoadArrays()) {
+                addPFGEdge(csManager.getArrayIndex(o), csManager.getCSVar(csVar.getContext(), la.getLValue()));
+            }
+            processCall(csVar, o);
         }
     }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * <p>
+     * This also performs lazy cycle detection (Hardekopf and Lin, PLDI'07):
+     * if a successor already has the same points-to set as pointer,
+     * the edge is likely on a cycle, and the successor becomes
+     * a candidate of cycle detection. Each edge is checked only once.
+     * To keep the check as cheap as the propagation, the sets are
+     * approximately compared by their sizes and the new objects.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        PointsToSet diff = PointsToSetFactory.make();
-        pointsToSet.objects().filter(obj -> !pointer.getPointsToSet().contains(obj)).forEach(diff::addObject);
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet diff = difference(pointsToSet, pts);
         if (!diff.isEmpty()) {
-            diff.forEach(o -> pointer.getPointsToSet().addObject(o));
-            pointerFlowGraph.getSuccsOf(pointer).forEach(succ -> workList.addEntry(succ, diff));
+            diff.forEach(pts::addObject);
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+                PointsToSet succPts = succ.getPointsToSet();
+                if (collapseCycles && succPts != pts && succPts.size() == pts.size()
+                        && diff.objects().allMatch(succPts::contains)
+                        && checkedEdges.put(pointer, succ)) {
+                    cycleCandidates.add(succ);
+                }
+            }
         }
         return diff;
     }
 
+    /**
+     * @return a new points-to set containing the objects that are
+     * in pts1 but not in pts2.
+     */
+    private static PointsToSet difference(PointsToSet pts1, PointsToSet pts2) {
+        PointsToSet diff = PointsToSetFactory.make();
+        pts1.objects().filter(obj -> !pts2.contains(obj)).forEach(diff::addObject);
+        return diff;
+    }
+
+    /**
+     * Detects the PFG cycles from the candidates and collapses them.
+     */
+    private void collapseCycles() {
+        for (Pointer candidate : cycleCandidates) {
+            for (List<Pointer> cycle : pointerFlowGraph.findCycles(candidate)) {
+                collapsedPointers += merge(cycle);
+            }
+        }
+        cycleCandidates.clear();
+    }
+
+    /**
+     * Merges representatives which always have the same points-to set,
+     * e.g., the pointers of a PFG cycle, into one representative.
+     * Before merging, the objects that are known by only one side are
+     * sent to the other side, i.e., the successors and the variables
+     * of the merged pointers.
+     *
+     * @return the number of merged pointers.
+     */
+    private int merge(List<Pointer> pointers) {
+        int merged = 0;
+        Pointer rep = pointers.get(0);
+        for (Pointer pointer : pointers.subList(1, pointers.size())) {
+            PointsToSet pts = pointer.getPointsToSet();
+            PointsToSet missing = difference(rep.getPointsToSet(), pts);
+            List<Pointer> members = List.copyOf(pointerFlowGraph.getMembersOf(pointer));
+            if (!missing.isEmpty()) {
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                    workList.addEntry(succ, missing);
+                }
+            }
+            pointerFlowGraph.merge(pointer, rep);
+            if (!pts.isEmpty()) {
+                workList.addEntry(rep, pts);
+            }
+            for (Pointer p : members) {
+                if (p instanceof CSVar csVar) {
+                    processNewObjects(csVar, missing);
+                }
+            }
+            merged += members.size();
+        }
+        return merged;
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
@@ -288,6 +439,19 @@ class Solver {
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
         Type type = recv != null ? recv.getObject().getType() : null;
+        if ((callSite.isVirtual() || callSite.isInterface())
+                && type instanceof ClassType classType) {
+            JClass jclass = classType.getJClass();
+            Subsignature subsig = callSite.getMethodRef().getSubsignature();
+            JMethod callee = dispatchCache.get(jclass, subsig);
+            if (callee == null) {
+                callee = CallGraphs.resolveCallee(type, callSite);
+                if (callee != null) {
+                    dispatchCache.put(jclass, subsig, callee);
+                }
+            }
+            return callee;
+        }
         return CallGraphs.resolveCallee(type, callSite);
     }
 
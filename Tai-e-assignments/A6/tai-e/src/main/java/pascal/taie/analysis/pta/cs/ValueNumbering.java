@@ -0,0 +1,129 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.SCC;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds pointer-equivalent variables of a method before solving,
+ * by hash-based value numbering (HVN) over the copy statements.
+ * <p>
+ * Variables defined by statements other than copies, as well as
+ * parameters and this variable, obtain unique value numbers. A variable
+ * defined only by copies obtains the value number of its source if it has
+ * one source, otherwise the value number shared by all variables having
+ * the same set of source value numbers. Variables on a copy cycle obtain
+ * the same value number. Variables with the same value number always
+ * have the same points-to set.
+ */
+final class ValueNumbering {
+
+    private ValueNumbering() {
+    }
+
+    /**
+     * @return groups of pointer-equivalent variables of given IR.
+     * Each group contains at least two variables.
+     */
+    static List<List<Var>> getEquivalentVars(IR ir) {
+        SimpleGraph<Var> copies = new SimpleGraph<>();
+        Set<Var> indirect = Sets.newSet();
+        if (ir.getThis() != null) {
+            indirect.add(ir.getThis());
+        }
+        indirect.addAll(ir.getParams());
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                copies.addNode(copy.getRValue());
+                copies.addNode(copy.getLValue());
+                copies.addEdge(copy.getRValue(), copy.getLValue());
+            } else {
+                stmt.getDef().ifPresent(def -> {
+                    if (def instanceof Var var) {
+                        indirect.add(var);
+                    }
+                });
+            }
+        }
+        if (copies.getNumberOfNodes() == 0) {
+            return List.of();
+        }
+        Map<Var, Integer> numbers = Maps.newMap();
+        Map<Set<Integer>, Integer> labels = Maps.newMap();
+        int next = 0;
+        List<List<Var>> sccs = new SCC<>(copies).getComponents();
+        // SCCs are in reverse topological order, so process them reversely
+        for (int i = sccs.size() - 1; i >= 0; --i) {
+            List<Var> scc = sccs.get(i);
+            Set<Var> members = Set.copyOf(scc);
+            Set<Integer> label = Sets.newSet();
+            boolean unique = false;
+            for (Var var : scc) {
+                unique |= indirect.contains(var);
+                for (Var pred : copies.getPredsOf(var)) {
+                    if (!members.contains(pred)) {
+                        label.add(numbers.get(pred));
+                    }
+                }
+            }
+            int number;
+            if (unique || label.isEmpty()) {
+                number = next++;
+            } else if (label.size() == 1) {
+                number = label.iterator().next();
+            } else {
+                Integer n = labels.get(label);
+                if (n == null) {
+                    n = next++;
+                    labels.put(label, n);
+                }
+                number = n;
+            }
+            scc.forEach(var -> numbers.put(var, number));
+        }
+        Map<Integer, List<Var>> groups = Maps.newMap();
+        for (Var var : ir.getVars()) {
+            Integer number = numbers.get(var);
+            if (number != null) {
+                groups.computeIfAbsent(number, n -> new ArrayList<>()).add(var);
+            }
+        }
+        return groups.values()
+                .stream()
+                .filter(vars -> vars.size() > 1)
+                .toList();
+    }
+}
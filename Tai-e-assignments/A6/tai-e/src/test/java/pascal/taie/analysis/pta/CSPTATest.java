@@ -93,4 +93,28 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testCycle() {
+        Tests.testCSPTA(DIR, "Cycle", "cs:1-call");
+    }
+
+    /**
+     * Checks that collapsing PFG cycles does not change the results.
+     */
+    @Test
+    public void testWithoutCollapsingCycles() {
+        Tests.testCSPTA(DIR, "Cycle", "cs:1-call", "collapse-cycles:false");
+    }
+
+    /**
+     * Checks that merging pointer-equivalent variables does not change
+     * the results.
+     */
+    @Test
+    public void testWithoutMergingEquivalentVars() {
+        Tests.testCSPTA(DIR, "InstanceField", "merge-equivalent-vars:false");
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "merge-equivalent-vars:false");
+        Tests.testCSPTA(DIR, "TwoType", "cs:2-type", "merge-equivalent-vars:false");
+    }
 }
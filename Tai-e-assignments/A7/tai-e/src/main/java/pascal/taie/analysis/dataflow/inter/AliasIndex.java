@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the field and array accesses that may access the same
+ * memory locations, built once from the result of pointer analysis.
+ * <p>
+ * For each load, the index gives the stores that may write the location
+ * read by the load, and for each store, the loads that may read the
+ * location written by the store. Two instance field (array) accesses
+ * are aliased if they access the same field (any element) and the
+ * points-to sets of their bases intersect. Static field accesses are
+ * aliased if they access the same field.
+ * <p>
+ * The aliases of the bases are computed by the abstract objects they
+ * point to, and the bases with the same points-to set share the result,
+ * so that each load and store is only matched with its aliases instead
+ * of all stores and loads in the program.
+ */
+class AliasIndex {
+
+    private final MultiMap<LoadField, StoreField> loadToStoreFields = Maps.newMultiMap();
+
+    private final MultiMap<StoreField, LoadField> storeToLoadFields = Maps.newMultiMap();
+
+    private final MultiMap<LoadArray, StoreArray> loadToStoreArrays = Maps.newMultiMap();
+
+    private final MultiMap<StoreArray, LoadArray> storeToLoadArrays = Maps.newMultiMap();
+
+    AliasIndex(PointerAnalysisResult pta, ICFG<JMethod, Stmt> icfg) {
+        indexInstanceAccesses(pta);
+        indexStaticFields(icfg);
+    }
+
+    private void indexInstanceAccesses(PointerAnalysisResult pta) {
+        MultiMap<Obj, Var> pointedBy = Maps.newMultiMap();
+        for (Var var : pta.getVars()) {
+            if (isBase(var)) {
+                pta.getPointsToSet(var).forEach(obj -> pointedBy.put(obj, var));
+            }
+        }
+        Map<Set<Obj>, Set<Var>> aliasBuckets = Maps.newMap();
+        for (Var base : pta.getVars()) {
+            if (base.getLoadFields().isEmpty() && base.getLoadArrays().isEmpty()) {
+                continue;
+            }
+            Set<Var> aliases = aliasBuckets.computeIfAbsent(
+                    pta.getPointsToSet(base), pts -> {
+                        Set<Var> vars = Sets.newHybridSet();
+                        pts.forEach(obj -> vars.addAll(pointedBy.get(obj)));
+                        return vars;
+                    });
+            for (Var alias : aliases) {
+                for (LoadField load : base.getLoadFields()) {
+                    JField field = load.getFieldRef().resolve();
+                    for (StoreField store : alias.getStoreFields()) {
+                        if (store.getFieldRef().resolve().equals(field)) {
+                            loadToStoreFields.put(load, store);
+                            storeToLoadFields.put(store, load);
+                        }
+                    }
+                }
+                for (LoadArray load : base.getLoadArrays()) {
+                    for (StoreArray store : alias.getStoreArrays()) {
+                        loadToStoreArrays.put(load, store);
+                        storeToLoadArrays.put(store, load);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isBase(Var var) {
+        return !var.getLoadFields().isEmpty() || !var.getStoreFields().isEmpty()
+                || !var.getLoadArrays().isEmpty() || !var.getStoreArrays().isEmpty();
+    }
+
+    private void indexStaticFields(ICFG<JMethod, Stmt> icfg) {
+        MultiMap<JField, LoadField> loads = Maps.newMultiMap();
+        MultiMap<JField, StoreField> stores = Maps.newMultiMap();
+        for (Stmt stmt : icfg) {
+            if (stmt instanceof LoadField load && load.isStatic()) {
+                loads.put(load.getFieldRef().resolve(), load);
+            } else if (stmt instanceof StoreField store && store.isStatic()) {
+                stores.put(store.getFieldRef().resolve(), store);
+            }
+        }
+        for (JField field : loads.keySet()) {
+            for (LoadField load : loads.get(field)) {
+                for (StoreField store : stores.get(field)) {
+                    loadToStoreFields.put(load, store);
+                    storeToLoadFields.put(store, load);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the stores that may write the field read by given load.
+     */
+    Set<StoreField> getStoresOf(LoadField load) {
+        return loadToStoreFields.get(load);
+    }
+
+    /**
+     * @return the loads that may read the field written by given store.
+     */
+    Set<LoadField> getLoadsOf(StoreField store) {
+        return storeToLoadFields.get(store);
+    }
+
+    /**
+     * @return the stores that may write the array elements read by given load.
+     */
+    Set<StoreArray> getStoresOf(LoadArray load) {
+        return loadToStoreArrays.get(load);
+    }
+
+    /**
+     * @return the loads that may read the array elements written by given store.
+     */
+    Set<LoadArray> getLoadsOf(StoreArray store) {
+        return storeToLoadArrays.get(store);
+    }
+}
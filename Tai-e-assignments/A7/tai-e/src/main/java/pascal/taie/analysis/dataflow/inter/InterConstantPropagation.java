@@ -50,6 +50,14 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    private PointerAnalysisResult pta;
+
+    /**
+     * Index of the loads and stores which may access the same locations,
+     * or null if it has not been queried.
+     */
+    private AliasIndex aliasIndex;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
@@ -58,10 +66,25 @@ public class InterConstantPropagation extends
     @Override
     protected void initialize() {
         String ptaId = getOptions().getString("pta");
-        PointerAnalysisResult pta = World.get().getResult(ptaId);
+        pta = World.get().getResult(ptaId);
+        aliasIndex = null;
         // You can do initialization work here
     }
 
+    /**
+     * @return the index of aliased loads and stores, which gives the
+     * stores that a load depends on and the loads that depend on a store
+     * when transferring them with alias-aware. The index is built on
+     * first query, so that it costs nothing if no load or store is
+     * transferred.
+     */
+    AliasIndex getAliasIndex() {
+        if (aliasIndex == null) {
+            aliasIndex = new AliasIndex(pta, icfg);
+        }
+        return aliasIndex;
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
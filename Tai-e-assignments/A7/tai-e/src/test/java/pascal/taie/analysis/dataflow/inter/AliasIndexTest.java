@@ -0,0 +1,191 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.NewObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests {@link AliasIndex} on the main methods of the alias test programs.
+ * The pointer analysis of this assignment is left to be implemented, thus
+ * the index is built from the points-to sets given by a flow-insensitive
+ * analysis of the allocations and copies in main method, and the ICFG
+ * consisting of the statements of main method.
+ */
+public class AliasIndexTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
+
+    /**
+     * Builds the alias index of main method of given program through
+     * {@link InterConstantPropagation#getAliasIndex()}.
+     */
+    private static AliasIndex buildIndex(String main) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main, "-a", "cfg"});
+        IR ir = World.get().getMainMethod().getIR();
+        World.get().storeResult("pta", pointerAnalysisOf(ir));
+        InterConstantPropagation analysis = new InterConstantPropagation(
+                new AnalysisConfig(InterConstantPropagation.ID,
+                        "edge-refine", false, "alias-aware", true, "pta", "pta"));
+        analysis.icfg = icfgOf(ir);
+        analysis.initialize();
+        AliasIndex index = analysis.getAliasIndex();
+        Assert.assertSame("Alias index is built more than once",
+                index, analysis.getAliasIndex());
+        return index;
+    }
+
+    /**
+     * @return a pointer analysis result which only supports
+     * {@link PointerAnalysisResult#getVars()} and
+     * {@link PointerAnalysisResult#getPointsToSet(Var)}.
+     */
+    private static PointerAnalysisResult pointerAnalysisOf(IR ir) {
+        MultiMap<Var, Obj> pointsTo = Maps.newMultiMap();
+        ir.forEach(stmt -> {
+            if (stmt instanceof New newStmt) {
+                pointsTo.put(newStmt.getLValue(), new NewObj(newStmt));
+            }
+        });
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Stmt stmt : ir) {
+                if (stmt instanceof Copy copy) {
+                    changed |= pointsTo.putAll(copy.getLValue(),
+                            pointsTo.get(copy.getRValue()));
+                }
+            }
+        }
+        return (PointerAnalysisResult) Proxy.newProxyInstance(
+                AliasIndexTest.class.getClassLoader(),
+                new Class<?>[]{PointerAnalysisResult.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getVars" -> ir.getVars();
+                    case "getPointsToSet" -> pointsTo.get((Var) args[0]);
+                    default -> throw new UnsupportedOperationException(
+                            method.getName());
+                });
+    }
+
+    /**
+     * @return an ICFG which only supports iterating its nodes,
+     * i.e., the statements of given IR.
+     */
+    @SuppressWarnings("unchecked")
+    private static ICFG<JMethod, Stmt> icfgOf(IR ir) {
+        return (ICFG<JMethod, Stmt>) Proxy.newProxyInstance(
+                AliasIndexTest.class.getClassLoader(),
+                new Class<?>[]{ICFG.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "iterator" -> ir.iterator();
+                    case "getNodes" -> Set.copyOf(ir.getStmts());
+                    default -> throw new UnsupportedOperationException(
+                            method.getName());
+                });
+    }
+
+    /**
+     * @return the statements of given type in main method.
+     */
+    private static <S extends Stmt> List<S> getStmts(Class<S> type) {
+        return World.get().getMainMethod().getIR().stmts()
+                .filter(type::isInstance)
+                .map(type::cast)
+                .toList();
+    }
+
+    private static Set<Integer> lines(Collection<? extends Stmt> stmts) {
+        return stmts.stream()
+                .map(Stmt::getLineNumber)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testInstanceField() {
+        AliasIndex index = buildIndex("InstanceField");
+        // a1 and a2 point to different objects, thus each load
+        // only reads the store in the line above it
+        for (LoadField load : getStmts(LoadField.class)) {
+            Assert.assertEquals(Set.of(load.getLineNumber() - 1),
+                    lines(index.getStoresOf(load)));
+        }
+        for (StoreField store : getStmts(StoreField.class)) {
+            Assert.assertEquals(Set.of(store.getLineNumber() + 1),
+                    lines(index.getLoadsOf(store)));
+        }
+    }
+
+    @Test
+    public void testArray() {
+        AliasIndex index = buildIndex("Array");
+        // a1 is initialized at line 4 and loaded at line 5, and elements of
+        // a2 are stored at lines 7-9 and loaded at lines 10-11. The elements
+        // are not distinguished by indexes.
+        for (LoadArray load : getStmts(LoadArray.class)) {
+            Set<Integer> expected = load.getLineNumber() == 5
+                    ? Set.of(4) : Set.of(7, 8, 9);
+            Assert.assertEquals(expected, lines(index.getStoresOf(load)));
+        }
+        for (StoreArray store : getStmts(StoreArray.class)) {
+            Set<Integer> expected = store.getLineNumber() == 4
+                    ? Set.of(5) : Set.of(10, 11);
+            Assert.assertEquals(expected, lines(index.getLoadsOf(store)));
+        }
+    }
+
+    @Test
+    public void testStaticField() {
+        AliasIndex index = buildIndex("StaticField");
+        LoadField load = getStmts(LoadField.class).get(0);
+        StoreField store = getStmts(StoreField.class).get(0);
+        Assert.assertEquals(Set.of(store), index.getStoresOf(load));
+        Assert.assertEquals(Set.of(load), index.getLoadsOf(store));
+    }
+}